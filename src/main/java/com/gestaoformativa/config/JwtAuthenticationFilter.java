@@ -1,5 +1,6 @@
 package com.gestaoformativa.config;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -10,13 +11,14 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
-import org.springframework.util.AntPathMatcher;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
+import com.gestaoformativa.model.TokenPrincipal;
 import com.gestaoformativa.service.CustomUserDetailsService;
+import com.gestaoformativa.service.SecurityVersionService;
+import com.gestaoformativa.service.TokenRevocationService;
 
 import java.io.IOException;
-import java.util.List;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -27,44 +29,37 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private CustomUserDetailsService userDetailsService;
 
-    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+    @Autowired
+    private SecurityVersionService securityVersions;
+
+    @Autowired
+    private TokenRevocationService tokenRevocations;
 
-    private static final List<String> WHITELIST = List.of(
-            "/swagger-ui.html",
-            "/swagger-ui/**",
-            "/api-docs/**",       // seu springdoc.api-docs.path=/api-docs
-            "/api-docs.yaml",
-            "/v3/api-docs/**",    // (opcional) deixa compatível se alguém mudar a prop
-            "/api/auth/**"
-    );
+    // Preflight e rotas públicas não passam pela leitura do token
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return "OPTIONS".equalsIgnoreCase(request.getMethod()) || PublicPaths.matches(request.getRequestURI());
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
         try {
-            if ("OPTIONS".equalsIgnoreCase(request.getMethod())) {
-                filterChain.doFilter(request, response);
-                return;
-            }
-
-            String path = request.getRequestURI();
-            boolean whitelisted = WHITELIST.stream().anyMatch(p -> PATH_MATCHER.match(p, path));
-            if (whitelisted) {
-                filterChain.doFilter(request, response);
-                return;
-            }
-
             if (SecurityContextHolder.getContext().getAuthentication() != null) {
                 filterChain.doFilter(request, response);
                 return;
             }
 
             String jwt = getJwtFromRequest(request);
-            if (StringUtils.hasText(jwt) && jwtTokenProvider.validateToken(jwt)) {
-                String username = jwtTokenProvider.getUsernameFromToken(jwt);
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
+            // Uma única verificação (ou consulta ao cache de tokens verificados) por requisição;
+            // a revogação é conferida sempre, inclusive para tokens vindos do cache
+            Claims claims = StringUtils.hasText(jwt) ? jwtTokenProvider.parseClaims(jwt) : null;
+            if (claims != null && tokenRevocations.isRevoked(claims.getId())) {
+                claims = null;
+            }
+            UserDetails userDetails = claims != null ? resolvePrincipal(claims) : null;
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken authentication =
                         new UsernamePasswordAuthenticationToken(
                                 userDetails, null, userDetails.getAuthorities());
@@ -79,6 +74,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    // Tokens com claims completas não consultam o usuário; a versão de segurança
+    // (em cache) garante que alterações de papel ou conta revoguem o token
+    private UserDetails resolvePrincipal(Claims claims) {
+        TokenPrincipal principal = jwtTokenProvider.toPrincipal(claims);
+        if (principal == null) {
+            return userDetailsService.loadAuthenticatedUser(claims.getSubject());
+        }
+        if (!securityVersions.isCurrent(principal.getUserId(), principal.getSecurityVersion())) {
+            return null;
+        }
+        return principal;
+    }
+
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
@@ -1,78 +1,178 @@
 package com.gestaoformativa.config;
 
+import com.gestaoformativa.model.TokenPrincipal;
+import com.gestaoformativa.model.User;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
 import java.util.Date;
+import java.util.UUID;
 
+@Slf4j
 @Component
 public class JwtTokenProvider {
 
+    private static final String CLAIM_USER_ID = "uid";
+    private static final String CLAIM_TENANT_ID = "tid";
+    private static final String CLAIM_ROLE_ID = "rid";
+    private static final String CLAIM_PERMISSIONS = "perm";
+    private static final String CLAIM_LIFE_STAGE = "stage";
+    private static final String CLAIM_LOCATION_ID = "loc";
+    private static final String CLAIM_SECURITY_VERSION = "sv";
+
     private final Key jwtSecret;
     private final int jwtExpirationInMs;
+    // O parser é imutável e thread-safe: construído uma vez com a chave
+    private final JwtParser parser;
+    private final VerifiedTokenCache verifiedTokens;
+    private final boolean claimsMode;
+
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
 
     public JwtTokenProvider(
             @Value("${app.jwt-secret}") String jwtSecret,
-            @Value("${app.jwt-expiration-ms}") int jwtExpirationInMs) {
+            @Value("${app.jwt-expiration-ms}") int jwtExpirationInMs,
+            @Value("${app.jwt.verified-cache.enabled:true}") boolean cacheEnabled,
+            @Value("${app.jwt.verified-cache.max-size:10000}") int cacheMaxSize,
+            @Value("${app.jwt.claims-mode.enabled:true}") boolean claimsMode,
+            MeterRegistry meterRegistry) {
 
         // Converter a string para uma chave segura
         this.jwtSecret = Keys.hmacShaKeyFor(jwtSecret.getBytes());
         this.jwtExpirationInMs = jwtExpirationInMs;
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(this.jwtSecret)
+                .build();
+        this.verifiedTokens = cacheEnabled ? new VerifiedTokenCache(cacheMaxSize) : null;
+        this.claimsMode = claimsMode;
+
+        this.cacheHits = Counter.builder("jwt.verification")
+                .description("Tokens JWT encontrados no cache de tokens verificados")
+                .tag("result", "cached")
+                .register(meterRegistry);
+        this.cacheMisses = Counter.builder("jwt.verification")
+                .description("Tokens JWT verificados pela assinatura")
+                .tag("result", "verified")
+                .register(meterRegistry);
     }
 
     public String generateToken(Authentication authentication) {
-        String username = authentication.getName();
+        // Claims completas: o filtro autoriza sem carregar o usuário
+        if (claimsMode && authentication.getPrincipal() instanceof User user) {
+            return buildToken(user.getUsername(), TokenPrincipal.of(user));
+        }
+        return buildToken(authentication.getName(), null);
+    }
+
+    // Token de acesso a partir de dados já carregados, usado na renovação por refresh token
+    public String generateToken(TokenPrincipal principal) {
+        return buildToken(principal.getUsername(), claimsMode ? principal : null);
+    }
+
+    public int getExpirationMs() {
+        return jwtExpirationInMs;
+    }
+
+    private String buildToken(String username, TokenPrincipal principal) {
         Date currentDate = new Date();
         Date expireDate = new Date(currentDate.getTime() + jwtExpirationInMs);
 
-        return Jwts.builder()
+        // jti identifica o token para revogação (logout)
+        JwtBuilder builder = Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(username)
-                .setIssuedAt(new Date())
-                .setExpiration(expireDate)
+                .setIssuedAt(currentDate)
+                .setExpiration(expireDate);
+
+        if (principal != null) {
+            builder.claim(CLAIM_USER_ID, principal.getUserId())
+                    .claim(CLAIM_TENANT_ID, principal.getTenantId())
+                    .claim(CLAIM_ROLE_ID, principal.getRoleId())
+                    .claim(CLAIM_PERMISSIONS, principal.getPermissions())
+                    .claim(CLAIM_LIFE_STAGE, principal.getLifeStage() != null ? principal.getLifeStage().name() : null)
+                    .claim(CLAIM_LOCATION_ID, principal.getLocationId())
+                    .claim(CLAIM_SECURITY_VERSION, principal.getSecurityVersion());
+        }
+
+        return builder
                 .signWith(jwtSecret, SignatureAlgorithm.HS512)
                 .compact();
     }
 
-    public String getUsernameFromJWT(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(jwtSecret)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.getSubject();
+    // Principal montado das claims; null para tokens emitidos só com o subject
+    public TokenPrincipal toPrincipal(Claims claims) {
+        Long userId = longClaim(claims, CLAIM_USER_ID);
+        Integer securityVersion = claims.get(CLAIM_SECURITY_VERSION, Integer.class);
+        if (userId == null || securityVersion == null) {
+            return null;
+        }
+        String stage = claims.get(CLAIM_LIFE_STAGE, String.class);
+        Integer permissions = claims.get(CLAIM_PERMISSIONS, Integer.class);
+        return new TokenPrincipal(
+                userId,
+                claims.getSubject(),
+                longClaim(claims, CLAIM_TENANT_ID),
+                longClaim(claims, CLAIM_ROLE_ID),
+                permissions != null ? permissions : 0,
+                stage != null ? User.LifeStage.valueOf(stage) : null,
+                longClaim(claims, CLAIM_LOCATION_ID),
+                securityVersion);
     }
 
-    public boolean validateToken(String token) {
+    // O JSON devolve Integer ou Long conforme o tamanho do número
+    private static Long longClaim(Claims claims, String name) {
+        Object value = claims.get(name);
+        return value instanceof Number number ? number.longValue() : null;
+    }
+
+    // Verifica assinatura e expiração uma única vez e devolve as claims; null se o token for inválido
+    public Claims parseClaims(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+
+        if (verifiedTokens != null) {
+            Claims cached = verifiedTokens.get(token, System.currentTimeMillis());
+            if (cached != null) {
+                cacheHits.increment();
+                return cached;
+            }
+        }
+
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(jwtSecret)
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
-        } catch (SecurityException ex) {
-            // Log assinatura JWT inválida
-        } catch (MalformedJwtException ex) {
-            // Token JWT malformado
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            cacheMisses.increment();
+            if (verifiedTokens != null) {
+                verifiedTokens.put(token, claims);
+            }
+            return claims;
         } catch (ExpiredJwtException ex) {
-            // Token JWT expirado
-        } catch (UnsupportedJwtException ex) {
-            // Token JWT não suportado
-        } catch (IllegalArgumentException ex) {
-            // Claims JWT vazias
+            log.debug("Token JWT expirado");
+        } catch (JwtException | IllegalArgumentException ex) {
+            // Assinatura inválida, token malformado, não suportado ou vazio
+            log.debug("Token JWT inválido: {}", ex.getMessage());
         }
-        return false;
+        return null;
     }
 
-    public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .setSigningKey(jwtSecret)
-                .parseClaimsJws(token)
-                .getBody();
+    public String getUsernameFromJWT(String token) {
+        return getUsernameFromToken(token);
+    }
 
-        return claims.getSubject();
+    public boolean validateToken(String token) {
+        return parseClaims(token) != null;
+    }
+
+    public String getUsernameFromToken(String token) {
+        Claims claims = parseClaims(token);
+        return claims != null ? claims.getSubject() : null;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,59 @@
+package com.gestaoformativa.config;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Rotas públicas que não usam token: liberadas no SecurityConfig e ignoradas pelo filtro JWT.
+// Os padrões são compilados uma vez; o prefixo literal de cada um descarta a maioria das
+// requisições (/api/...) com um startsWith, antes de qualquer casamento de padrão.
+final class PublicPaths {
+
+    static final String[] PATTERNS = {
+            "/swagger-ui.html",
+            "/swagger-ui/**",
+            "/api-docs/**",       // springdoc.api-docs.path=/api-docs
+            "/api-docs.yaml",
+            "/v3/api-docs/**",    // compatível com o caminho padrão do springdoc
+            "/api/auth/**"
+    };
+
+    private static final List<CompiledPattern> COMPILED = Arrays.stream(PATTERNS)
+            .map(CompiledPattern::new)
+            .toList();
+
+    private PublicPaths() {
+    }
+
+    static boolean matches(String path) {
+        PathContainer container = null;
+        for (CompiledPattern compiled : COMPILED) {
+            if (!path.startsWith(compiled.prefix)) {
+                continue;
+            }
+            if (container == null) {
+                container = PathContainer.parsePath(path);
+            }
+            if (compiled.pattern.matches(container)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class CompiledPattern {
+        private final String prefix;
+        private final PathPattern pattern;
+
+        CompiledPattern(String pattern) {
+            int wildcard = pattern.indexOf('*');
+            // "/swagger-ui/**" também casa "/swagger-ui": o prefixo para antes da última barra
+            String literal = wildcard >= 0 ? pattern.substring(0, wildcard) : pattern;
+            this.prefix = literal.endsWith("/") ? literal.substring(0, literal.length() - 1) : literal;
+            this.pattern = PathPatternParser.defaultInstance.parse(pattern);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.gestaoformativa.config;
+
+import com.gestaoformativa.model.TokenPrincipal;
+import com.gestaoformativa.model.User;
+import com.gestaoformativa.service.RateLimitService;
+import com.gestaoformativa.service.RateLimitService.Policy;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Limite de requisições nas rotas caras ou visadas por força bruta e raspagem: login (por IP),
+// busca (por usuário e pelo tenant do usuário autenticado) e onboarding (por IP). Roda depois
+// do filtro JWT para identificar o usuário. O limite por username do login é aplicado no AuthController, que lê o corpo.
+// O IP é request.getRemoteAddr(): atrás de proxy, configure server.forward-headers-strategy.
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private RateLimitService rateLimitService;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return !(path.startsWith("/api/search/")
+                || path.equals("/api/auth/login")
+                || path.startsWith("/api/public/onboarding/"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String path = request.getRequestURI();
+        long retryAfter;
+        if (path.startsWith("/api/search/")) {
+            retryAfter = rateLimitService.check(Policy.SEARCH_USER, currentUserKey(request));
+            if (retryAfter == 0) {
+                retryAfter = rateLimitService.check(Policy.SEARCH_TENANT, tenantKey());
+            }
+        } else if ("POST".equalsIgnoreCase(request.getMethod())) {
+            Policy policy = path.equals("/api/auth/login") ? Policy.LOGIN_IP : Policy.ONBOARDING_IP;
+            retryAfter = rateLimitService.check(policy, request.getRemoteAddr());
+        } else {
+            retryAfter = 0;
+        }
+
+        if (retryAfter > 0) {
+            writeTooManyRequests(response, retryAfter);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    static void writeTooManyRequests(HttpServletResponse response, long retryAfterSeconds) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write("Too many requests");
+    }
+
+    // Usuário autenticado pelo filtro JWT; sem token, o IP
+    private static String currentUserKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated() && authentication.getPrincipal() != null
+                && !(authentication.getPrincipal() instanceof String)) {
+            return "user:" + authentication.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    // Tenant do usuário autenticado; sem autenticação (ou sem tenant) o limite por tenant não se aplica.
+    // O cabeçalho X-Tenant-ID não é usado: qualquer cliente poderia esgotar o limite de outro tenant
+    private static String tenantKey() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            return null;
+        }
+        Long tenantId = null;
+        if (authentication.getPrincipal() instanceof TokenPrincipal principal) {
+            tenantId = principal.getTenantId();
+        } else if (authentication.getPrincipal() instanceof User user) {
+            tenantId = user.getTenantId();
+        }
+        return tenantId != null ? tenantId.toString() : null;
+    }
+}
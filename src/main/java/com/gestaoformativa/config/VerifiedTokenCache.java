@@ -0,0 +1,123 @@
+package com.gestaoformativa.config;
+
+import io.jsonwebtoken.Claims;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Cache dos tokens já verificados: SHA-256 do token -> claims. Um cliente envia o mesmo token
+// em todas as requisições até expirar, então a verificação HMAC e o parse do JSON acontecem
+// uma vez por token. Só o hash é guardado (o token em si não fica na memória) e a entrada
+// deixa de valer na expiração do token.
+// Leituras não bloqueiam: o LRU é aproximado. Ao atingir o tamanho máximo, uma varredura remove
+// os expirados e, se não bastar, o quarto das entradas usadas há mais tempo.
+final class VerifiedTokenCache {
+
+    // Precisão do último acesso, para que leituras seguidas do mesmo token não escrevam na entrada
+    private static final long ACCESS_RESOLUTION_MS = 1000;
+
+    private final int maxSize;
+    private final Map<TokenHash, VerifiedToken> entries = new ConcurrentHashMap<>();
+    // Uma varredura por vez; as demais threads inserem sem esperar
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    VerifiedTokenCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    Claims get(String token, long now) {
+        TokenHash hash = TokenHash.of(token);
+        VerifiedToken verified = entries.get(hash);
+        if (verified == null) {
+            return null;
+        }
+        if (verified.expiresAt <= now) {
+            entries.remove(hash, verified);
+            return null;
+        }
+        if (now - verified.lastAccess >= ACCESS_RESOLUTION_MS) {
+            verified.lastAccess = now;
+        }
+        return verified.claims;
+    }
+
+    void put(String token, Claims claims) {
+        // Tokens sem expiração não são guardados
+        if (claims.getExpiration() == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (entries.size() >= maxSize) {
+            sweep(now);
+        }
+        entries.put(TokenHash.of(token), new VerifiedToken(claims, claims.getExpiration().getTime(), now));
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    private void sweep(long now) {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            entries.values().removeIf(entry -> entry.expiresAt <= now);
+            if (entries.size() < maxSize) {
+                return;
+            }
+            long[] accesses = entries.values().stream().mapToLong(entry -> entry.lastAccess).sorted().toArray();
+            if (accesses.length > 0) {
+                long threshold = accesses[accesses.length / 4];
+                entries.values().removeIf(entry -> entry.lastAccess <= threshold);
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    private static final class VerifiedToken {
+        private final Claims claims;
+        private final long expiresAt;
+        private volatile long lastAccess;
+
+        VerifiedToken(Claims claims, long expiresAt, long lastAccess) {
+            this.claims = claims;
+            this.expiresAt = expiresAt;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    private static final class TokenHash {
+        private final byte[] digest;
+        private final int hashCode;
+
+        private TokenHash(byte[] digest) {
+            this.digest = digest;
+            this.hashCode = Arrays.hashCode(digest);
+        }
+
+        static TokenHash of(String token) {
+            try {
+                return new TokenHash(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII)));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof TokenHash other && Arrays.equals(digest, other.digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -2,17 +2,29 @@ package com.gestaoformativa.controller;
 
 import com.gestaoformativa.dto.JwtResponse;
 import com.gestaoformativa.dto.LoginRequest;
+import com.gestaoformativa.dto.RefreshTokenRequest;
+import com.gestaoformativa.model.TokenPrincipal;
 import com.gestaoformativa.model.User;
+import io.jsonwebtoken.Claims;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.annotation.*;
 import com.gestaoformativa.config.JwtTokenProvider;
+import com.gestaoformativa.service.PasswordAuthenticationService;
+import com.gestaoformativa.service.RateLimitService;
+import com.gestaoformativa.service.RefreshTokenService;
+import com.gestaoformativa.service.TokenRevocationService;
 
 import javax.validation.Valid;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -27,33 +39,140 @@ import io.swagger.v3.oas.annotations.media.Schema;
 public class AuthController {
 
     @Autowired
-    private AuthenticationManager authenticationManager;
+    private PasswordAuthenticationService passwordAuthenticationService;
+
+    @Autowired
+    private RateLimitService rateLimitService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
 
     @Autowired
     private JwtTokenProvider jwtTokenProvider;
 
+    // Executor de tarefas do Spring Boot (o mesmo das requisições assíncronas do MVC)
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private AsyncTaskExecutor taskExecutor;
+
     @Operation(summary = "Autenticar usuário", description = "Realiza login e retorna token JWT")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Login realizado com sucesso",
                     content = @Content(schema = @Schema(implementation = JwtResponse.class))),
             @ApiResponse(responseCode = "400", description = "Dados de login inválidos"),
-            @ApiResponse(responseCode = "401", description = "Credenciais inválidas")
+            @ApiResponse(responseCode = "401", description = "Credenciais inválidas"),
+            @ApiResponse(responseCode = "429", description = "Muitas tentativas de login; tente novamente após Retry-After"),
+            @ApiResponse(responseCode = "503", description = "Muitos logins simultâneos; tente novamente após Retry-After")
     })
     @PostMapping("/login")
-    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword()));
+    public CompletableFuture<ResponseEntity<?>> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
+        // Tentativas por username (o limite por IP fica no RateLimitFilter)
+        long retryAfter = rateLimitService.check(RateLimitService.Policy.LOGIN_USERNAME, loginRequest.getUsername());
+        if (retryAfter > 0) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                    .body("Too many requests"));
+        }
+
+        // A verificação da senha roda no pool de hashing; a thread da requisição é liberada
+        CompletableFuture<Authentication> authentication;
+        try {
+            authentication = passwordAuthenticationService.authenticate(
+                    loginRequest.getUsername(), loginRequest.getPassword());
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(passwordAuthenticationService.getRetryAfterSeconds()))
+                    .build());
+        }
 
-        SecurityContextHolder.getContext().setAuthentication(authentication);
-        String jwt = jwtTokenProvider.generateToken(authentication);
+        // A resposta (refresh token no banco e assinatura do JWT) é montada fora do pool de hashing,
+        // que fica só com o BCrypt
+        return authentication.handleAsync((result, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                if (cause instanceof AuthenticationException) {
+                    return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+                }
+                throw error instanceof CompletionException completion ? completion : new CompletionException(cause);
+            }
 
-        User userDetails = (User) authentication.getPrincipal();
+            String jwt = jwtTokenProvider.generateToken(result);
+            User userDetails = (User) result.getPrincipal();
 
+            return ResponseEntity.ok(new JwtResponse(
+                    jwt,
+                    userDetails.getId(),
+                    userDetails.getUsername(),
+                    userDetails.getName(),
+                    userDetails.getRole().getName(),
+                    refreshTokenService.issue(userDetails.getId()),
+                    expiresInSeconds()));
+        }, taskExecutor);
+    }
+
+    @Operation(summary = "Renovar token",
+            description = "Troca um refresh token por um novo token de acesso e um novo refresh token. " +
+                    "Cada refresh token vale uma única vez; reutilizá-lo revoga a sessão")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Token renovado",
+                    content = @Content(schema = @Schema(implementation = JwtResponse.class))),
+            @ApiResponse(responseCode = "401", description = "Refresh token inválido, expirado, já usado ou revogado")
+    })
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refreshToken(@Valid @RequestBody RefreshTokenRequest request) {
+        // Sem BCrypt e sem carregar o usuário: as claims vêm de uma consulta às colunas necessárias
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(request.getRefreshToken());
+        if (rotation == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        TokenPrincipal principal = rotation.getPrincipal();
         return ResponseEntity.ok(new JwtResponse(
-                jwt,
-                userDetails.getId(),
-                userDetails.getUsername(),
-                userDetails.getName(),
-                userDetails.getRole().getName()));
+                jwtTokenProvider.generateToken(principal),
+                principal.getUserId(),
+                principal.getUsername(),
+                rotation.getName(),
+                rotation.getRoleName(),
+                rotation.getRefreshToken(),
+                expiresInSeconds()));
+    }
+
+    @Operation(summary = "Encerrar sessão", description = "Revoga o token JWT enviado no cabeçalho Authorization até a sua expiração " +
+            "e, se informado, o refresh token da sessão")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Token de acesso ou refresh token revogado"),
+            @ApiResponse(responseCode = "400", description = "Token emitido sem identificador (jti)"),
+            @ApiResponse(responseCode = "401", description = "Token ausente ou inválido e nenhum refresh token revogado")
+    })
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                    @RequestBody(required = false) RefreshTokenRequest refreshRequest) {
+        // O refresh token é revogado mesmo com o access token já expirado: com tokens de acesso curtos,
+        // o logout de um cliente ocioso não pode deixar a família de refresh ativa
+        boolean refreshRevoked = refreshRequest != null && refreshRequest.getRefreshToken() != null
+                && refreshTokenService.revoke(refreshRequest.getRefreshToken());
+
+        // Rotas de /api/auth não passam pelo filtro JWT: o token é verificado aqui
+        String token = authorization != null && authorization.startsWith("Bearer ") ? authorization.substring(7) : null;
+        Claims claims = token != null ? jwtTokenProvider.parseClaims(token) : null;
+        if (claims == null || tokenRevocationService.isRevoked(claims.getId())) {
+            return refreshRevoked ? ResponseEntity.noContent().build() : ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (claims.getId() == null || claims.getExpiration() == null) {
+            return refreshRevoked ? ResponseEntity.noContent().build() : ResponseEntity.badRequest().body("Token cannot be revoked");
+        }
+
+        TokenPrincipal principal = jwtTokenProvider.toPrincipal(claims);
+        tokenRevocationService.revoke(claims.getId(),
+                principal != null ? principal.getUserId() : null,
+                claims.getExpiration().getTime());
+        return ResponseEntity.noContent().build();
+    }
+
+    private long expiresInSeconds() {
+        return jwtTokenProvider.getExpirationMs() / 1000L;
     }
 }
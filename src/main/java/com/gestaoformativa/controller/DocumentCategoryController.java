@@ -2,6 +2,7 @@ package com.gestaoformativa.controller;
 
 import com.gestaoformativa.dto.CategoryDTO;
 import com.gestaoformativa.model.DocumentCategory;
+import com.gestaoformativa.model.Permission;
 import com.gestaoformativa.model.User;
 import com.gestaoformativa.service.DocumentCategoryService;
 import com.gestaoformativa.service.UserService;
@@ -114,7 +115,7 @@ public class DocumentCategoryController {
                                                       @AuthenticationPrincipal UserDetails userDetails) {
         User currentUser = userService.findByUsername(userDetails.getUsername());
 
-        if (!currentUser.hasPermission("documents")) {
+        if (!currentUser.hasPermission(Permission.DOCUMENTS)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
@@ -146,7 +147,7 @@ public class DocumentCategoryController {
                                                       @AuthenticationPrincipal UserDetails userDetails) {
         User currentUser = userService.findByUsername(userDetails.getUsername());
 
-        if (!currentUser.hasPermission("documents")) {
+        if (!currentUser.hasPermission(Permission.DOCUMENTS)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
@@ -183,7 +184,7 @@ public class DocumentCategoryController {
                                                @AuthenticationPrincipal UserDetails userDetails) {
         User currentUser = userService.findByUsername(userDetails.getUsername());
 
-        if (!currentUser.hasPermission("documents")) {
+        if (!currentUser.hasPermission(Permission.DOCUMENTS)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
@@ -209,7 +210,7 @@ public class DocumentCategoryController {
                                                              @AuthenticationPrincipal UserDetails userDetails) {
         User currentUser = userService.findByUsername(userDetails.getUsername());
 
-        if (!currentUser.hasPermission("documents")) {
+        if (!currentUser.hasPermission(Permission.DOCUMENTS)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
@@ -233,7 +234,7 @@ public class DocumentCategoryController {
                                                                   @AuthenticationPrincipal UserDetails userDetails) {
         User currentUser = userService.findByUsername(userDetails.getUsername());
 
-        if (!currentUser.hasPermission("documents")) {
+        if (!currentUser.hasPermission(Permission.DOCUMENTS)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
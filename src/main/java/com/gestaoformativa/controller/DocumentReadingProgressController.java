@@ -1,8 +1,11 @@
 package com.gestaoformativa.controller;
 
 import com.gestaoformativa.dto.ReadingProgressDTO;
+import com.gestaoformativa.dto.ReadingStatsDTO;
+import com.gestaoformativa.dto.UniqueReadersDTO;
 import com.gestaoformativa.model.DocumentReadingProgress;
 import com.gestaoformativa.model.FormativeDocument;
+import com.gestaoformativa.model.Permission;
 import com.gestaoformativa.model.User;
 import com.gestaoformativa.service.DocumentReadingProgressService;
 import com.gestaoformativa.service.FormativeDocumentService;
@@ -16,7 +19,9 @@ import org.springframework.web.bind.annotation.*;
 
 import javax.persistence.EntityNotFoundException;
 import javax.validation.Valid;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -33,6 +38,8 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 @SecurityRequirement(name = "bearer-jwt")
 public class DocumentReadingProgressController {
 
+    private static final int MAX_SKETCH_DAYS = 366;
+
     @Autowired
     private DocumentReadingProgressService progressService;
 
@@ -79,13 +86,8 @@ public class DocumentReadingProgressController {
         User currentUser = userService.findByUsername(userDetails.getUsername());
 
         try {
-            FormativeDocument document = documentService.getDocumentById(documentId);
-            if (!currentUser.canAccessDocument(document)) {
-                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
-            }
-
             DocumentReadingProgress progress = progressService.updateReadingProgress(
-                    currentUser.getId(),
+                    currentUser,
                     documentId,
                     progressDTO.getProgressPercentage(),
                     progressDTO.getUserNotes()
@@ -99,6 +101,115 @@ public class DocumentReadingProgressController {
         }
     }
 
+    @Operation(summary = "Estatísticas de leitura",
+            description = "Retorna leitores, conclusões, progresso médio e taxa de conclusão de um documento")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Estatísticas retornadas com sucesso"),
+            @ApiResponse(responseCode = "403", description = "Acesso negado ao documento"),
+            @ApiResponse(responseCode = "404", description = "Documento não encontrado")
+    })
+    @GetMapping("/document/{documentId}/stats")
+    public ResponseEntity<ReadingStatsDTO> getReadingStats(@PathVariable Long documentId,
+                                                           @AuthenticationPrincipal UserDetails userDetails) {
+        User currentUser = userService.findByUsername(userDetails.getUsername());
+
+        try {
+            return ResponseEntity.ok(progressService.getReadingStats(currentUser, documentId));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+    }
+
+    @Operation(summary = "Leitores distintos do documento",
+            description = "Número aproximado de membros distintos que leram o documento nos últimos dias, total e por localização")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Contagem retornada com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Período inválido"),
+            @ApiResponse(responseCode = "403", description = "Sem permissão para gerenciar documentos"),
+            @ApiResponse(responseCode = "404", description = "Documento não encontrado")
+    })
+    @GetMapping("/document/{documentId}/unique-readers")
+    public ResponseEntity<UniqueReadersDTO> getUniqueDocumentReaders(@PathVariable Long documentId,
+                                                                     @RequestParam(defaultValue = "30") int days,
+                                                                     @AuthenticationPrincipal UserDetails userDetails) {
+        User currentUser = userService.findByUsername(userDetails.getUsername());
+
+        if (!currentUser.hasPermission(Permission.DOCUMENTS)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (days < 1 || days > MAX_SKETCH_DAYS) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        try {
+            return ResponseEntity.ok(progressService.getUniqueDocumentReaders(documentId, days));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @Operation(summary = "Leitores distintos da localização",
+            description = "Número aproximado de membros distintos da localização que leram algum documento nos últimos dias")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Contagem retornada com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Período inválido"),
+            @ApiResponse(responseCode = "403", description = "Sem permissão para gerenciar documentos")
+    })
+    @GetMapping("/location/{locationId}/unique-readers")
+    public ResponseEntity<UniqueReadersDTO> getUniqueLocationReaders(@PathVariable Long locationId,
+                                                                     @RequestParam(defaultValue = "30") int days,
+                                                                     @AuthenticationPrincipal UserDetails userDetails) {
+        User currentUser = userService.findByUsername(userDetails.getUsername());
+
+        if (!currentUser.hasPermission(Permission.DOCUMENTS)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (days < 1 || days > MAX_SKETCH_DAYS) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(progressService.getUniqueLocationReaders(locationId, days));
+    }
+
+    @Operation(summary = "Sincronizar progresso",
+            description = "Grava de uma vez o progresso de vários documentos registrado offline pelo leitor")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Progresso sincronizado com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Documentos demais na mesma sincronização"),
+            @ApiResponse(responseCode = "403", description = "Acesso negado a algum dos documentos"),
+            @ApiResponse(responseCode = "404", description = "Documento não encontrado")
+    })
+    @PostMapping("/sync")
+    public ResponseEntity<List<ReadingProgressDTO>> syncReadingProgress(@RequestBody List<ReadingProgressDTO> progressDTOs,
+                                                                        @AuthenticationPrincipal UserDetails userDetails) {
+        User currentUser = userService.findByUsername(userDetails.getUsername());
+
+        Map<Long, Integer> progressByDocument = new HashMap<>();
+        for (ReadingProgressDTO dto : progressDTOs) {
+            if (dto.getDocumentId() == null) {
+                return ResponseEntity.badRequest().build();
+            }
+            int percentage = dto.getProgressPercentage() != null ? dto.getProgressPercentage() : 0;
+            progressByDocument.merge(dto.getDocumentId(), percentage, Math::max);
+        }
+
+        try {
+            List<DocumentReadingProgress> progress = progressService.syncReadingProgress(currentUser, progressByDocument);
+
+            return ResponseEntity.ok(progress.stream()
+                    .map(this::convertToDTO)
+                    .collect(Collectors.toList()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+    }
+
     @Operation(summary = "Documentos concluídos", description = "Retorna todos os documentos concluídos pelo usuário")
     @ApiResponse(responseCode = "200", description = "Lista de documentos concluídos")
     @GetMapping("/completed")
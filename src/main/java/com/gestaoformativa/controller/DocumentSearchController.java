@@ -1,10 +1,13 @@
 package com.gestaoformativa.controller;
 
-import com.gestaoformativa.dto.DocumentDTO;
+import com.gestaoformativa.dto.ContentSearchResultDTO;
+import com.gestaoformativa.dto.DocumentSearchFilter;
+import com.gestaoformativa.dto.DocumentSummaryDTO;
+import com.gestaoformativa.model.DocumentAccessProfile;
 import com.gestaoformativa.model.FormativeDocument;
 import com.gestaoformativa.model.User;
-import org.springframework.data.domain.PageImpl;
 import com.gestaoformativa.service.DocumentSearchService;
+import com.gestaoformativa.service.TrendingDocumentTracker;
 import com.gestaoformativa.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -17,7 +20,6 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -43,7 +45,7 @@ public class DocumentSearchController {
     @Operation(summary = "Buscar documentos", description = "Busca documentos com múltiplos critérios de filtro")
     @ApiResponse(responseCode = "200", description = "Busca realizada com sucesso")
     @GetMapping("/documents")
-    public ResponseEntity<Page<DocumentDTO>> searchDocuments(
+    public ResponseEntity<Page<DocumentSummaryDTO>> searchDocuments(
             @Parameter(description = "Título do documento") @RequestParam(required = false) String title,
             @Parameter(description = "ID do autor") @RequestParam(required = false) Long authorId,
             @Parameter(description = "Tipo de documento") @RequestParam(required = false) FormativeDocument.DocumentType documentType,
@@ -57,106 +59,80 @@ public class DocumentSearchController {
             @Parameter(description = "Tamanho da página") @RequestParam(defaultValue = "10") int size,
             @AuthenticationPrincipal UserDetails userDetails) {
 
-        User currentUser = userService.findByUsername(userDetails.getUsername());
+        DocumentAccessProfile profile = userService.getAccessProfile(userDetails);
         Pageable pageable = PageRequest.of(page, size);
 
-        Page<FormativeDocument> documents = searchService.searchDocuments(
+        DocumentSearchFilter filter = new DocumentSearchFilter(
                 title, authorId, documentType, accessLevel, stage,
-                locationId, fromDate, toDate, keyword, pageable);
+                locationId, fromDate, toDate, keyword);
 
-        List<DocumentDTO> content = documents.getContent().stream()
-                .filter(currentUser::canAccessDocument)
-                .map(this::convertToDTO)
-                .toList();
-
-        Page<DocumentDTO> dtoPage = new PageImpl<>(content, pageable, content.size());
-
-        return ResponseEntity.ok(dtoPage);
+        return ResponseEntity.ok(searchService.searchDocuments(profile, filter, pageable));
     }
 
-    @Operation(summary = "Buscar por conteúdo", description = "Busca documentos pelo conteúdo textual")
+    @Operation(summary = "Buscar por conteúdo",
+            description = "Busca textual em título, palavras-chave e conteúdo, ordenada por relevância, com trechos destacados")
     @ApiResponse(responseCode = "200", description = "Busca por conteúdo realizada com sucesso")
     @GetMapping("/content")
-    public ResponseEntity<List<DocumentDTO>> searchByContent(
-            @Parameter(description = "Texto para busca", required = true) @RequestParam String text,
+    public ResponseEntity<Page<ContentSearchResultDTO>> searchByContent(
+            @Parameter(description = "Texto para busca (aceita \"frase exata\", OR e -termo)", required = true) @RequestParam String text,
+            @Parameter(description = "Número da página") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Tamanho da página") @RequestParam(defaultValue = "10") int size,
             @AuthenticationPrincipal UserDetails userDetails) {
 
-        User currentUser = userService.findByUsername(userDetails.getUsername());
-        List<FormativeDocument> documents = searchService.searchByContent(text);
-
-        List<DocumentDTO> documentDTOs = documents.stream()
-                .filter(currentUser::canAccessDocument)
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        DocumentAccessProfile profile = userService.getAccessProfile(userDetails);
+        Pageable pageable = PageRequest.of(page, size);
 
-        return ResponseEntity.ok(documentDTOs);
+        return ResponseEntity.ok(searchService.searchByContent(profile, text, pageable));
     }
 
     @Operation(summary = "Documentos recentes", description = "Retorna documentos recentemente atualizados")
     @ApiResponse(responseCode = "200", description = "Documentos recentes listados com sucesso")
     @GetMapping("/recent")
-    public ResponseEntity<List<DocumentDTO>> getRecentlyUpdatedDocuments(
+    public ResponseEntity<List<DocumentSummaryDTO>> getRecentlyUpdatedDocuments(
             @AuthenticationPrincipal UserDetails userDetails) {
 
-        User currentUser = userService.findByUsername(userDetails.getUsername());
-        List<FormativeDocument> documents = searchService.getRecentlyUpdatedDocuments();
-
-        List<DocumentDTO> documentDTOs = documents.stream()
-                .filter(currentUser::canAccessDocument)
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(documentDTOs);
+        DocumentAccessProfile profile = userService.getAccessProfile(userDetails);
+        return ResponseEntity.ok(searchService.getRecentlyUpdatedDocuments(profile));
     }
 
     @Operation(summary = "Documentos mais visualizados", description = "Retorna os documentos mais visualizados")
     @ApiResponse(responseCode = "200", description = "Documentos mais visualizados listados com sucesso")
     @GetMapping("/most-viewed")
-    public ResponseEntity<List<DocumentDTO>> getMostViewedDocuments(
+    public ResponseEntity<List<DocumentSummaryDTO>> getMostViewedDocuments(
             @Parameter(description = "Número da página") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Tamanho da página") @RequestParam(defaultValue = "10") int size,
             @AuthenticationPrincipal UserDetails userDetails) {
 
-        User currentUser = userService.findByUsername(userDetails.getUsername());
+        DocumentAccessProfile profile = userService.getAccessProfile(userDetails);
         Pageable pageable = PageRequest.of(page, size);
-        List<FormativeDocument> documents = searchService.getMostViewedDocuments(pageable);
 
-        List<DocumentDTO> documentDTOs = documents.stream()
-                .filter(currentUser::canAccessDocument)
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return ResponseEntity.ok(searchService.getMostViewedDocuments(profile, pageable));
+    }
+
+    @Operation(summary = "Documentos em alta",
+            description = "Retorna os documentos mais lidos recentemente, com peso maior para leituras mais novas")
+    @ApiResponse(responseCode = "200", description = "Documentos em alta listados com sucesso")
+    @GetMapping("/trending")
+    public ResponseEntity<List<DocumentSummaryDTO>> getTrendingDocuments(
+            @Parameter(description = "Janela de tempo (HOUR, DAY ou WEEK)") @RequestParam(defaultValue = "DAY") TrendingDocumentTracker.Window window,
+            @Parameter(description = "Quantidade de documentos (máximo 100)") @RequestParam(defaultValue = "10") int size,
+            @AuthenticationPrincipal UserDetails userDetails) {
 
-        return ResponseEntity.ok(documentDTOs);
+        DocumentAccessProfile profile = userService.getAccessProfile(userDetails);
+        return ResponseEntity.ok(searchService.getTrendingDocuments(profile, window, size));
     }
 
     @Operation(summary = "Documentos recomendados", description = "Retorna documentos recomendados para o usuário")
     @ApiResponse(responseCode = "200", description = "Documentos recomendados listados com sucesso")
     @GetMapping("/recommended")
-    public ResponseEntity<List<DocumentDTO>> getRecommendedDocuments(
+    public ResponseEntity<List<DocumentSummaryDTO>> getRecommendedDocuments(
             @Parameter(description = "Número da página") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Tamanho da página") @RequestParam(defaultValue = "10") int size,
             @AuthenticationPrincipal UserDetails userDetails) {
 
-        User currentUser = userService.findByUsername(userDetails.getUsername());
+        DocumentAccessProfile profile = userService.getAccessProfile(userDetails);
         Pageable pageable = PageRequest.of(page, size);
-        List<FormativeDocument> documents = searchService.getRecommendedDocumentsForUser(currentUser.getId(), pageable);
-
-        List<DocumentDTO> documentDTOs = documents.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(documentDTOs);
-    }
 
-    private DocumentDTO convertToDTO(FormativeDocument document) {
-        DocumentDTO dto = new DocumentDTO();
-        dto.setId(document.getId());
-        dto.setTitle(document.getTitle());
-        dto.setContent(document.getContent());
-        dto.setKeywords(document.getKeywords());
-        dto.setDocumentType(document.getDocumentType());
-        dto.setAccessLevel(document.getAccessLevel());
-        // Preencher outros campos necessários
-        return dto;
+        return ResponseEntity.ok(searchService.getRecommendedDocumentsForUser(profile, pageable));
     }
-}
\ No newline at end of file
+}
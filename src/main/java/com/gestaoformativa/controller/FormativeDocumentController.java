@@ -1,16 +1,29 @@
 package com.gestaoformativa.controller;
 
+import com.gestaoformativa.dto.CursorPageDTO;
 import com.gestaoformativa.dto.DocumentDTO;
+import com.gestaoformativa.dto.DocumentSummaryDTO;
+import com.gestaoformativa.model.DocumentAccessProfile;
+import com.gestaoformativa.model.DocumentAttachment;
 import com.gestaoformativa.model.FormativeDocument;
 import com.gestaoformativa.model.MissionLocation;
+import com.gestaoformativa.model.Permission;
 import com.gestaoformativa.model.Role;
 import com.gestaoformativa.model.User;
+import com.gestaoformativa.service.DocumentAccessIndex;
+import com.gestaoformativa.service.DocumentAttachmentService;
 import com.gestaoformativa.service.FormativeDocumentService;
 import com.gestaoformativa.service.MissionLocationService;
 import com.gestaoformativa.service.RoleService;
 import com.gestaoformativa.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -20,12 +33,16 @@ import org.springframework.web.multipart.MultipartFile;
 import javax.persistence.EntityNotFoundException;
 import javax.validation.Valid;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -45,6 +62,12 @@ public class FormativeDocumentController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private DocumentAccessIndex accessIndex;
+
+    @Autowired
+    private DocumentAttachmentService attachmentService;
+
     @Autowired
     private RoleService roleService;
 
@@ -54,15 +77,22 @@ public class FormativeDocumentController {
     @Operation(summary = "Listar documentos acessíveis", description = "Retorna todos os documentos que o usuário pode acessar")
     @ApiResponse(responseCode = "200", description = "Documentos listados com sucesso")
     @GetMapping
-    public ResponseEntity<List<DocumentDTO>> getAccessibleDocuments(@AuthenticationPrincipal UserDetails userDetails) {
-        User currentUser = userService.findByUsername(userDetails.getUsername());
-        List<FormativeDocument> documents = documentService.getAccessibleDocuments(currentUser);
-
-        List<DocumentDTO> documentDTOs = documents.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public ResponseEntity<List<DocumentSummaryDTO>> getAccessibleDocuments(@AuthenticationPrincipal UserDetails userDetails) {
+        DocumentAccessProfile profile = userService.getAccessProfile(userDetails);
+        return ResponseEntity.ok(documentService.getAccessibleDocuments(profile));
+    }
 
-        return ResponseEntity.ok(documentDTOs);
+    @Operation(summary = "Listar documentos acessíveis (paginado)",
+            description = "Retorna um resumo dos documentos acessíveis, paginado por cursor (keyset). " +
+                    "Use o nextCursor retornado para obter a próxima página")
+    @ApiResponse(responseCode = "200", description = "Página de documentos retornada com sucesso")
+    @GetMapping(params = "size")
+    public ResponseEntity<CursorPageDTO<DocumentSummaryDTO>> getAccessibleDocumentsPage(
+            @Parameter(description = "Cursor retornado pela página anterior") @RequestParam(required = false) Long cursor,
+            @Parameter(description = "Tamanho da página (máximo 100)") @RequestParam int size,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        DocumentAccessProfile profile = userService.getAccessProfile(userDetails);
+        return ResponseEntity.ok(documentService.getAccessibleDocumentSummaries(profile, cursor, size));
     }
 
     @Operation(summary = "Obter documento por ID", description = "Retorna um documento específico pelo seu ID")
@@ -77,11 +107,36 @@ public class FormativeDocumentController {
         User currentUser = userService.findByUsername(userDetails.getUsername());
         FormativeDocument document = documentService.getDocumentById(id);
 
-        if (!currentUser.canAccessDocument(document)) {
+        if (!accessIndex.canAccess(currentUser, document)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        return ResponseEntity.ok(convertToDTO(document));
+        return ResponseEntity.ok(convertToDTO(document, attachmentService.getAttachment(id).orElse(null)));
+    }
+
+    @Operation(summary = "Documentos relacionados",
+            description = "Retorna documentos lidos pelos membros que leram este documento, ordenados por similaridade")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Documentos relacionados listados com sucesso"),
+            @ApiResponse(responseCode = "403", description = "Acesso negado ao documento"),
+            @ApiResponse(responseCode = "404", description = "Documento não encontrado")
+    })
+    @GetMapping("/{id}/related")
+    public ResponseEntity<List<DocumentSummaryDTO>> getRelatedDocuments(
+            @PathVariable Long id,
+            @Parameter(description = "Quantidade de documentos (máximo 100)") @RequestParam(defaultValue = "10") int size,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        User currentUser = userService.findByUsername(userDetails.getUsername());
+
+        try {
+            List<DocumentSummaryDTO> related = documentService.getRelatedDocuments(currentUser, id, size);
+            if (related == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(related);
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
     }
 
     @Operation(summary = "Criar documento", description = "Cria um novo documento formativo")
@@ -94,7 +149,7 @@ public class FormativeDocumentController {
                                                       @AuthenticationPrincipal UserDetails userDetails) {
         User currentUser = userService.findByUsername(userDetails.getUsername());
 
-        if (!currentUser.hasPermission("documents")) {
+        if (!currentUser.hasPermission(Permission.DOCUMENTS)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
@@ -117,7 +172,7 @@ public class FormativeDocumentController {
         User currentUser = userService.findByUsername(userDetails.getUsername());
         FormativeDocument existingDocument = documentService.getDocumentById(id);
 
-        if (!existingDocument.getAuthor().equals(currentUser) && !currentUser.hasPermission("documents")) {
+        if (!existingDocument.getAuthor().equals(currentUser) && !currentUser.hasPermission(Permission.DOCUMENTS)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
@@ -140,7 +195,7 @@ public class FormativeDocumentController {
         User currentUser = userService.findByUsername(userDetails.getUsername());
         FormativeDocument document = documentService.getDocumentById(id);
 
-        if (!document.getAuthor().equals(currentUser) && !currentUser.hasPermission("documents")) {
+        if (!document.getAuthor().equals(currentUser) && !currentUser.hasPermission(Permission.DOCUMENTS)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
@@ -162,42 +217,157 @@ public class FormativeDocumentController {
         User currentUser = userService.findByUsername(userDetails.getUsername());
         FormativeDocument document = documentService.getDocumentById(id);
 
-        if (!document.getAuthor().equals(currentUser) && !currentUser.hasPermission("documents")) {
+        if (!document.getAuthor().equals(currentUser) && !currentUser.hasPermission(Permission.DOCUMENTS)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        try {
-            document.setAttachmentData(file.getBytes());
-            document.setAttachmentName(file.getOriginalFilename());
-            document.setAttachmentType(file.getContentType());
+        try (InputStream content = file.getInputStream()) {
+            DocumentAttachment attachment = attachmentService.storeAttachment(
+                    document, file.getOriginalFilename(), file.getContentType(), content);
+            return ResponseEntity.ok(convertToDTO(document, attachment));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
 
-            FormativeDocument updatedDocument = documentService.updateDocument(id, document);
-            return ResponseEntity.ok(convertToDTO(updatedDocument));
+    @Operation(summary = "Upload de anexo em streaming",
+            description = "Envia o arquivo diretamente no corpo da requisição, sem multipart e sem carregá-lo em memória")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Anexo adicionado com sucesso"),
+            @ApiResponse(responseCode = "403", description = "Acesso negado"),
+            @ApiResponse(responseCode = "404", description = "Documento não encontrado"),
+            @ApiResponse(responseCode = "500", description = "Erro no upload do arquivo")
+    })
+    @PutMapping("/{id}/attachment")
+    public ResponseEntity<DocumentDTO> streamAttachment(@PathVariable Long id,
+                                                        @Parameter(description = "Nome do arquivo") @RequestParam("filename") String filename,
+                                                        @AuthenticationPrincipal UserDetails userDetails,
+                                                        HttpServletRequest request) {
+        User currentUser = userService.findByUsername(userDetails.getUsername());
+        FormativeDocument document = documentService.getDocumentById(id);
+
+        if (!document.getAuthor().equals(currentUser) && !currentUser.hasPermission(Permission.DOCUMENTS)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        try (InputStream content = request.getInputStream()) {
+            DocumentAttachment attachment = attachmentService.storeAttachment(
+                    document, filename, request.getContentType(), content);
+            return ResponseEntity.ok(convertToDTO(document, attachment));
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    @Operation(summary = "Download de anexo",
+            description = "Faz o download do anexo em streaming, com suporte a Range/If-Range e ETag para retomada")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Anexo completo"),
+            @ApiResponse(responseCode = "206", description = "Intervalo solicitado do anexo"),
+            @ApiResponse(responseCode = "304", description = "Anexo não modificado (ETag)"),
+            @ApiResponse(responseCode = "403", description = "Acesso negado ao documento"),
+            @ApiResponse(responseCode = "404", description = "Documento ou anexo não encontrado"),
+            @ApiResponse(responseCode = "416", description = "Intervalo inválido")
+    })
+    @GetMapping("/{id}/attachment")
+    public void downloadAttachment(@PathVariable Long id,
+                                   @AuthenticationPrincipal UserDetails userDetails,
+                                   HttpServletRequest request,
+                                   HttpServletResponse response) throws IOException {
+        User currentUser = userService.findByUsername(userDetails.getUsername());
+        FormativeDocument document = documentService.getDocumentById(id);
+
+        if (!accessIndex.canAccess(currentUser, document)) {
+            response.sendError(HttpStatus.FORBIDDEN.value());
+            return;
+        }
+
+        DocumentAttachment attachment = attachmentService.getAttachment(id).orElse(null);
+        if (attachment == null) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+
+        String etag = "\"" + attachment.getSha256() + "\"";
+        long size = attachment.getSizeBytes();
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && (ifNoneMatch.trim().equals("*") || ifNoneMatch.contains(etag))) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        long start = 0;
+        long end = size - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        // If-Range só é respeitado com ETag; se não corresponder, o arquivo é enviado inteiro
+        boolean rangeApplies = rangeHeader != null && (ifRange == null || ifRange.trim().equals(etag));
+
+        if (rangeApplies) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException e) {
+                ranges = List.of();
+            }
+            if (ranges.size() != 1 || size == 0) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+            try {
+                start = ranges.get(0).getRangeStart(size);
+                end = ranges.get(0).getRangeEnd(size);
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        } else {
+            response.setStatus(HttpStatus.OK.value());
+        }
+
+        long length = end - start + 1;
+        response.setContentType(attachment.getContentType() != null
+                ? attachment.getContentType() : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setContentLengthLong(length);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(attachment.getFileName() != null ? attachment.getFileName() : "attachment", StandardCharsets.UTF_8)
+                .build().toString());
+
+        // Com o blob em disco o Tomcat envia o arquivo via sendfile, sem passar pela JVM
+        Optional<Path> localFile = attachmentService.localPath(attachment);
+        if (localFile.isPresent() && Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support"))) {
+            request.setAttribute("org.apache.tomcat.sendfile.filename", localFile.get().toString());
+            request.setAttribute("org.apache.tomcat.sendfile.start", start);
+            request.setAttribute("org.apache.tomcat.sendfile.end", end + 1);
+            return;
+        }
+
+        try (InputStream content = attachmentService.openContent(attachment, start, length)) {
+            content.transferTo(response.getOutputStream());
+        }
+    }
+
     @Operation(summary = "Documentos por estágio", description = "Retorna documentos associados a um estágio de vida")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Documentos listados com sucesso"),
             @ApiResponse(responseCode = "400", description = "Estágio inválido")
     })
     @GetMapping("/by-stage/{stageName}")
-    public ResponseEntity<List<DocumentDTO>> getDocumentsByStage(@PathVariable String stageName,
-                                                                 @AuthenticationPrincipal UserDetails userDetails) {
+    public ResponseEntity<List<DocumentSummaryDTO>> getDocumentsByStage(@PathVariable String stageName,
+                                                                        @AuthenticationPrincipal UserDetails userDetails) {
         User currentUser = userService.findByUsername(userDetails.getUsername());
 
         try {
             User.LifeStage stage = User.LifeStage.valueOf(stageName);
-            List<FormativeDocument> documents = documentService.getDocumentsForStage(stage);
-
-            List<DocumentDTO> accessibleDocuments = documents.stream()
-                    .filter(currentUser::canAccessDocument)
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
-
-            return ResponseEntity.ok(accessibleDocuments);
+            return ResponseEntity.ok(documentService.getDocumentsForStage(currentUser, stage));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
         }
@@ -209,20 +379,13 @@ public class FormativeDocumentController {
             @ApiResponse(responseCode = "404", description = "Localização não encontrada")
     })
     @GetMapping("/by-location/{locationId}")
-    public ResponseEntity<List<DocumentDTO>> getDocumentsByLocation(@PathVariable Long locationId,
-                                                                    @AuthenticationPrincipal UserDetails userDetails) {
+    public ResponseEntity<List<DocumentSummaryDTO>> getDocumentsByLocation(@PathVariable Long locationId,
+                                                                           @AuthenticationPrincipal UserDetails userDetails) {
         User currentUser = userService.findByUsername(userDetails.getUsername());
 
         try {
             MissionLocation location = locationService.getLocationById(locationId);
-            List<FormativeDocument> documents = documentService.getDocumentsForLocation(location);
-
-            List<DocumentDTO> accessibleDocuments = documents.stream()
-                    .filter(currentUser::canAccessDocument)
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
-
-            return ResponseEntity.ok(accessibleDocuments);
+            return ResponseEntity.ok(documentService.getDocumentsForLocation(currentUser, location));
         } catch (EntityNotFoundException e) {
             return ResponseEntity.notFound().build();
         }
@@ -241,7 +404,7 @@ public class FormativeDocumentController {
         User currentUser = userService.findByUsername(userDetails.getUsername());
         FormativeDocument document = documentService.getDocumentById(documentId);
 
-        if (!document.getAuthor().equals(currentUser) && !currentUser.hasPermission("documents")) {
+        if (!document.getAuthor().equals(currentUser) && !currentUser.hasPermission(Permission.DOCUMENTS)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
@@ -266,6 +429,16 @@ public class FormativeDocumentController {
         return dto;
     }
 
+    private DocumentDTO convertToDTO(FormativeDocument document, DocumentAttachment attachment) {
+        DocumentDTO dto = convertToDTO(document);
+        if (attachment != null) {
+            dto.setAttachmentName(attachment.getFileName());
+            dto.setAttachmentType(attachment.getContentType());
+            dto.setAttachmentSize(attachment.getSizeBytes());
+        }
+        return dto;
+    }
+
     private FormativeDocument convertToEntity(DocumentDTO dto) {
         FormativeDocument document = new FormativeDocument();
 
@@ -2,6 +2,7 @@ package com.gestaoformativa.controller;
 
 import com.gestaoformativa.dto.FormativeStageDTO;
 import com.gestaoformativa.model.FormativeStage;
+import com.gestaoformativa.model.Permission;
 import com.gestaoformativa.model.User;
 import com.gestaoformativa.service.FormativeStageService;
 import com.gestaoformativa.service.UserService;
@@ -49,7 +50,7 @@ public class FormativeStageController {
     public ResponseEntity<List<FormativeStageDTO>> getAllStages(@AuthenticationPrincipal UserDetails userDetails) {
         User currentUser = userService.findByUsername(userDetails.getUsername());
 
-        if (!currentUser.hasPermission("stages")) {
+        if (!currentUser.hasPermission(Permission.STAGES)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
@@ -76,7 +77,7 @@ public class FormativeStageController {
         try {
             FormativeStage stage = stageService.getStageById(id);
 
-            if (!stage.getUser().equals(currentUser) && !currentUser.hasPermission("stages")) {
+            if (!stage.getUser().equals(currentUser) && !currentUser.hasPermission(Permission.STAGES)) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
             }
 
@@ -97,7 +98,7 @@ public class FormativeStageController {
                                                                    @AuthenticationPrincipal UserDetails userDetails) {
         User currentUser = userService.findByUsername(userDetails.getUsername());
 
-        if (!currentUser.getId().equals(userId) && !currentUser.hasPermission("stages")) {
+        if (!currentUser.getId().equals(userId) && !currentUser.hasPermission(Permission.STAGES)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
@@ -123,7 +124,7 @@ public class FormativeStageController {
     public ResponseEntity<List<FormativeStageDTO>> getActiveStages(@AuthenticationPrincipal UserDetails userDetails) {
         User currentUser = userService.findByUsername(userDetails.getUsername());
 
-        if (!currentUser.hasPermission("stages")) {
+        if (!currentUser.hasPermission(Permission.STAGES)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
@@ -147,7 +148,7 @@ public class FormativeStageController {
             @AuthenticationPrincipal UserDetails userDetails) {
         User currentUser = userService.findByUsername(userDetails.getUsername());
 
-        if (!currentUser.hasPermission("stages")) {
+        if (!currentUser.hasPermission(Permission.STAGES)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
@@ -173,7 +174,7 @@ public class FormativeStageController {
                                                          @AuthenticationPrincipal UserDetails userDetails) {
         User currentUser = userService.findByUsername(userDetails.getUsername());
 
-        if (!currentUser.getId().equals(userId) && !currentUser.hasPermission("stages")) {
+        if (!currentUser.getId().equals(userId) && !currentUser.hasPermission(Permission.STAGES)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
@@ -204,7 +205,7 @@ public class FormativeStageController {
         try {
             FormativeStage existingStage = stageService.getStageById(id);
 
-            if (!existingStage.getUser().equals(currentUser) && !currentUser.hasPermission("stages")) {
+            if (!existingStage.getUser().equals(currentUser) && !currentUser.hasPermission(Permission.STAGES)) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
             }
 
@@ -233,7 +234,7 @@ public class FormativeStageController {
         try {
             FormativeStage existingStage = stageService.getStageById(id);
 
-            if (!existingStage.getUser().equals(currentUser) && !currentUser.hasPermission("stages")) {
+            if (!existingStage.getUser().equals(currentUser) && !currentUser.hasPermission(Permission.STAGES)) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
             }
 
@@ -260,7 +261,7 @@ public class FormativeStageController {
         try {
             FormativeStage existingStage = stageService.getStageById(id);
 
-            if (!existingStage.getUser().equals(currentUser) && !currentUser.hasPermission("stages")) {
+            if (!existingStage.getUser().equals(currentUser) && !currentUser.hasPermission(Permission.STAGES)) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
             }
 
@@ -281,7 +282,7 @@ public class FormativeStageController {
                                                                        @AuthenticationPrincipal UserDetails userDetails) {
         User currentUser = userService.findByUsername(userDetails.getUsername());
 
-        if (!currentUser.hasPermission("stages")) {
+        if (!currentUser.hasPermission(Permission.STAGES)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
@@ -303,7 +304,7 @@ public class FormativeStageController {
     public ResponseEntity<List<FormativeStageDTO>> getRecentlyStartedStages(@AuthenticationPrincipal UserDetails userDetails) {
         User currentUser = userService.findByUsername(userDetails.getUsername());
 
-        if (!currentUser.hasPermission("stages")) {
+        if (!currentUser.hasPermission(Permission.STAGES)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
@@ -325,7 +326,7 @@ public class FormativeStageController {
     public ResponseEntity<List<FormativeStageDTO>> getRecentlyCompletedStages(@AuthenticationPrincipal UserDetails userDetails) {
         User currentUser = userService.findByUsername(userDetails.getUsername());
 
-        if (!currentUser.hasPermission("stages")) {
+        if (!currentUser.hasPermission(Permission.STAGES)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
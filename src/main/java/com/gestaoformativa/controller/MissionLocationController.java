@@ -3,6 +3,7 @@ package com.gestaoformativa.controller;
 import com.gestaoformativa.dto.MissionLocationDTO;
 import com.gestaoformativa.dto.UserDTO;
 import com.gestaoformativa.model.MissionLocation;
+import com.gestaoformativa.model.Permission;
 import com.gestaoformativa.model.User;
 import com.gestaoformativa.service.MissionLocationService;
 import com.gestaoformativa.service.UserService;
@@ -106,7 +107,7 @@ public class MissionLocationController {
                                                              @AuthenticationPrincipal UserDetails userDetails) {
         User currentUser = userService.findByUsername(userDetails.getUsername());
 
-        if (!currentUser.hasPermission("users")) {
+        if (!currentUser.hasPermission(Permission.USERS)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
@@ -132,7 +133,7 @@ public class MissionLocationController {
                                                              @AuthenticationPrincipal UserDetails userDetails) {
         User currentUser = userService.findByUsername(userDetails.getUsername());
 
-        if (!currentUser.hasPermission("users")) {
+        if (!currentUser.hasPermission(Permission.USERS)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
@@ -157,7 +158,7 @@ public class MissionLocationController {
                                                @AuthenticationPrincipal UserDetails userDetails) {
         User currentUser = userService.findByUsername(userDetails.getUsername());
 
-        if (!currentUser.hasPermission("users")) {
+        if (!currentUser.hasPermission(Permission.USERS)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
@@ -183,7 +184,7 @@ public class MissionLocationController {
                                                                 @AuthenticationPrincipal UserDetails userDetails) {
         User currentUser = userService.findByUsername(userDetails.getUsername());
 
-        if (!currentUser.hasPermission("users")) {
+        if (!currentUser.hasPermission(Permission.USERS)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
@@ -2,6 +2,7 @@ package com.gestaoformativa.controller;
 
 import com.gestaoformativa.dto.RoleDTO;
 import com.gestaoformativa.dto.UserDTO;
+import com.gestaoformativa.model.Permission;
 import com.gestaoformativa.model.Role;
 import com.gestaoformativa.model.User;
 import com.gestaoformativa.service.RoleService;
@@ -47,7 +48,7 @@ public class RoleController {
     public ResponseEntity<List<RoleDTO>> getAllRoles(@AuthenticationPrincipal UserDetails userDetails) {
         User currentUser = userService.findByUsername(userDetails.getUsername());
 
-        if (!currentUser.hasPermission("roles")) {
+        if (!currentUser.hasPermission(Permission.ROLES)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
@@ -71,7 +72,7 @@ public class RoleController {
                                                @AuthenticationPrincipal UserDetails userDetails) {
         User currentUser = userService.findByUsername(userDetails.getUsername());
 
-        if (!currentUser.hasPermission("roles")) {
+        if (!currentUser.hasPermission(Permission.ROLES)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
@@ -94,7 +95,7 @@ public class RoleController {
                                               @AuthenticationPrincipal UserDetails userDetails) {
         User currentUser = userService.findByUsername(userDetails.getUsername());
 
-        if (!currentUser.hasPermission("roles")) {
+        if (!currentUser.hasPermission(Permission.ROLES)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
@@ -120,7 +121,7 @@ public class RoleController {
                                               @AuthenticationPrincipal UserDetails userDetails) {
         User currentUser = userService.findByUsername(userDetails.getUsername());
 
-        if (!currentUser.hasPermission("roles")) {
+        if (!currentUser.hasPermission(Permission.ROLES)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
@@ -147,7 +148,7 @@ public class RoleController {
                                            @AuthenticationPrincipal UserDetails userDetails) {
         User currentUser = userService.findByUsername(userDetails.getUsername());
 
-        if (!currentUser.hasPermission("roles")) {
+        if (!currentUser.hasPermission(Permission.ROLES)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
@@ -172,7 +173,7 @@ public class RoleController {
                                                         @AuthenticationPrincipal UserDetails userDetails) {
         User currentUser = userService.findByUsername(userDetails.getUsername());
 
-        if (!currentUser.hasPermission("roles")) {
+        if (!currentUser.hasPermission(Permission.ROLES)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
@@ -1,6 +1,7 @@
 package com.gestaoformativa.controller;
 
 import com.gestaoformativa.dto.UserDTO;
+import com.gestaoformativa.model.Permission;
 import com.gestaoformativa.model.Role;
 import com.gestaoformativa.model.User;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -61,7 +62,7 @@ public class UserController {
     @GetMapping
     public ResponseEntity<List<UserDTO>> getAllUsers(@AuthenticationPrincipal UserDetails userDetails) {
         User currentUser = userService.findByUsername(userDetails.getUsername());
-        if (!currentUser.hasPermission("users")) {
+        if (!currentUser.hasPermission(Permission.USERS)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
@@ -84,7 +85,7 @@ public class UserController {
                                                @AuthenticationPrincipal UserDetails userDetails) {
         User currentUser = userService.findByUsername(userDetails.getUsername());
 
-        if (!currentUser.getId().equals(id) && !currentUser.hasPermission("users")) {
+        if (!currentUser.getId().equals(id) && !currentUser.hasPermission(Permission.USERS)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
@@ -107,7 +108,7 @@ public class UserController {
                                               @AuthenticationPrincipal UserDetails userDetails) {
         User currentUser = userService.findByUsername(userDetails.getUsername());
 
-        if (!currentUser.hasPermission("users")) {
+        if (!currentUser.hasPermission(Permission.USERS)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
@@ -133,7 +134,7 @@ public class UserController {
                                               @AuthenticationPrincipal UserDetails userDetails) {
         User currentUser = userService.findByUsername(userDetails.getUsername());
 
-        if (!currentUser.getId().equals(id) && !currentUser.hasPermission("users")) {
+        if (!currentUser.getId().equals(id) && !currentUser.hasPermission(Permission.USERS)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
@@ -161,7 +162,7 @@ public class UserController {
                                            @AuthenticationPrincipal UserDetails userDetails) {
         User currentUser = userService.findByUsername(userDetails.getUsername());
 
-        if (!currentUser.hasPermission("users")) {
+        if (!currentUser.hasPermission(Permission.USERS)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
@@ -191,7 +192,7 @@ public class UserController {
                                               @AuthenticationPrincipal UserDetails userDetails) {
         User currentUser = userService.findByUsername(userDetails.getUsername());
 
-        if (!currentUser.hasPermission("users")) {
+        if (!currentUser.hasPermission(Permission.USERS)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
@@ -0,0 +1,26 @@
+package com.gestaoformativa.dto;
+
+import com.gestaoformativa.model.FormativeDocument;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Resultado da busca por conteúdo: resumo do documento, relevância e trecho com os termos destacados em <mark>
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContentSearchResultDTO {
+    private Long id;
+    private String title;
+    private FormativeDocument.DocumentType documentType;
+    private FormativeDocument.AccessLevel accessLevel;
+    private Long authorId;
+    private String authorName;
+    private LocalDateTime creationDate;
+    private LocalDateTime lastModifiedDate;
+    private String keywords;
+    private Double rank;
+    private String snippet;
+}
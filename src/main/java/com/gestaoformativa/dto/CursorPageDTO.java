@@ -0,0 +1,17 @@
+package com.gestaoformativa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Página baseada em cursor (keyset): o cliente envia nextCursor para obter a próxima página
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDTO<T> {
+    private List<T> items;
+    private Long nextCursor;
+    private boolean hasNext;
+}
@@ -22,6 +22,7 @@ public class DocumentDTO {
     private Set<Long> allowedRoleIds;
     private String attachmentName;
     private String attachmentType;
+    private Long attachmentSize;
     private String keywords;
     private Integer readingProgressPercentage;
     private Boolean completed;
@@ -0,0 +1,25 @@
+package com.gestaoformativa.dto;
+
+import com.gestaoformativa.model.FormativeDocument;
+import com.gestaoformativa.model.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Filtros opcionais da busca de documentos; campos nulos não restringem o resultado
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentSearchFilter {
+    private String title;
+    private Long authorId;
+    private FormativeDocument.DocumentType documentType;
+    private FormativeDocument.AccessLevel accessLevel;
+    private User.LifeStage stage;
+    private Long locationId;
+    private LocalDateTime fromDate;
+    private LocalDateTime toDate;
+    private String keyword;
+}
@@ -0,0 +1,40 @@
+package com.gestaoformativa.dto;
+
+import com.gestaoformativa.model.FormativeDocument;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+// Versão resumida do documento usada nas listagens (sem conteúdo nem bytes do anexo)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentSummaryDTO {
+    private Long id;
+    private String title;
+    private FormativeDocument.DocumentType documentType;
+    private FormativeDocument.AccessLevel accessLevel;
+    private Long authorId;
+    private String authorName;
+    private LocalDateTime creationDate;
+    private LocalDateTime lastModifiedDate;
+    private String keywords;
+    private String attachmentName;
+    private String attachmentType;
+    private Long attachmentSize;
+
+    // Palavras-chave separadas, a partir do texto gravado no documento ("fé, oração, missão")
+    public List<String> getKeywordList() {
+        if (keywords == null || keywords.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(keywords.split("[,;]"))
+                .map(String::trim)
+                .filter(keyword -> !keyword.isEmpty())
+                .toList();
+    }
+}
@@ -15,12 +15,18 @@ public class JwtResponse {
     private String username;
     private String name;
     private String role;
+    private String refreshToken;
+    // Validade do token de acesso, em segundos
+    private Long expiresIn;
 
-    public JwtResponse(String token, Long id, String username, String name, String role) {
+    public JwtResponse(String token, Long id, String username, String name, String role,
+                       String refreshToken, Long expiresIn) {
         this.token = token;
         this.id = id;
         this.username = username;
         this.name = name;
         this.role = role;
+        this.refreshToken = refreshToken;
+        this.expiresIn = expiresIn;
     }
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.gestaoformativa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReadingStatsDTO {
+    private Long documentId;
+    private Integer readerCount;
+    private Integer completedCount;
+    private Double averageProgress;
+    private Double completionRate;
+    private LocalDateTime lastActivity;
+}
@@ -0,0 +1,22 @@
+package com.gestaoformativa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+// Contagem aproximada (HyperLogLog) de leitores distintos em um intervalo de dias
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UniqueReadersDTO {
+    private Long documentId;
+    private Long locationId;
+    private LocalDate fromDate;
+    private LocalDate toDate;
+    private long uniqueReaders;
+    // Leitores distintos por localização (apenas na consulta por documento)
+    private Map<Long, Long> byLocation;
+}
@@ -0,0 +1,28 @@
+package com.gestaoformativa.model;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+// Dados mínimos do usuário necessários para avaliar as regras de acesso a documentos.
+// O tenant vem do próprio usuário (nunca do cabeçalho X-Tenant-ID) e particiona os documentos em alta.
+@Getter
+@EqualsAndHashCode
+@AllArgsConstructor
+public class DocumentAccessProfile {
+
+    private final Long userId;
+    private final Long roleId;
+    private final User.LifeStage lifeStage;
+    private final Long locationId;
+    private final Long tenantId;
+
+    public static DocumentAccessProfile of(User user) {
+        return new DocumentAccessProfile(
+                user.getId(),
+                user.getRole() != null ? user.getRole().getId() : null,
+                user.getLifeStage(),
+                user.getMissionLocation() != null ? user.getMissionLocation().getId() : null,
+                user.getTenantId());
+    }
+}
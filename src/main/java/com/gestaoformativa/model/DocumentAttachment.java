@@ -0,0 +1,47 @@
+package com.gestaoformativa.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// Metadados do anexo de um documento. Os bytes ficam no BlobStore, endereçados pelo sha256,
+// e só são lidos pelo download.
+@Entity
+@Table(name = "document_attachments")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentAttachment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "document_id", nullable = false, unique = true)
+    private FormativeDocument document;
+
+    private String fileName;
+
+    private String contentType;
+
+    @Column(nullable = false)
+    private Long sizeBytes;
+
+    // Hash SHA-256 do conteúdo em hexadecimal; também é a chave do blob (attachment_blobs)
+    @Column(nullable = false, length = 64)
+    private String sha256;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
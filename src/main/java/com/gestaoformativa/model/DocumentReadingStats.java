@@ -0,0 +1,40 @@
+package com.gestaoformativa.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+// Agregados de leitura de um documento. Somente leitura: a tabela é mantida pelo trigger
+// em document_reading_progress e reconstruída pela conciliação do DocumentReadingStatsService.
+@Entity
+@Immutable
+@Table(name = "document_reading_stats")
+@Getter
+@NoArgsConstructor
+public class DocumentReadingStats {
+
+    @Id
+    @Column(name = "document_id")
+    private Long documentId;
+
+    // Usuários com progresso registrado no documento
+    private Integer readerCount = 0;
+
+    private Integer completedCount = 0;
+
+    // Soma dos percentuais de progresso, para calcular a média sem varrer os registros
+    private Long progressSum = 0L;
+
+    private LocalDateTime lastActivity;
+
+    public Double getAverageProgress() {
+        return readerCount > 0 ? (double) progressSum / readerCount : null;
+    }
+
+    public Double getCompletionRate() {
+        return readerCount > 0 ? (double) completedCount / readerCount : null;
+    }
+}
@@ -112,15 +112,6 @@ public class FormativeDocument {
     )
     private Set<Role> allowedRoles;
 
-    @Lob
-    @Column(name = "attachment_data")
-    @Basic(fetch = FetchType.LAZY)
-    private byte[] attachmentData;
-
-    private String attachmentName;
-
-    private String attachmentType;
-
     // Metadata
     private String keywords;
 
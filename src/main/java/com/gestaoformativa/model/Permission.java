@@ -0,0 +1,32 @@
+package com.gestaoformativa.model;
+
+// Permissões do papel como bits (ver RolePermissions), também usadas na claim do token
+public enum Permission {
+    USERS,
+    ROLES,
+    STAGES,
+    DOCUMENTS,
+    // Papel com nome ADMIN (autoridade ROLE_ADMIN)
+    ADMIN;
+
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    public boolean isIn(int mask) {
+        return (mask & bit()) != 0;
+    }
+
+    // Nomes usados em User.hasPermission ("users", "roles", "stages", "documents")
+    public static Permission fromName(String name) {
+        if (name == null) {
+            return null;
+        }
+        for (Permission permission : values()) {
+            if (permission.name().equalsIgnoreCase(name)) {
+                return permission;
+            }
+        }
+        return null;
+    }
+}
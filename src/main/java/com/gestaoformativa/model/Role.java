@@ -1,15 +1,21 @@
 
 package com.gestaoformativa.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 import java.util.List;
 
 @Entity
 @Table(name = "roles")
-@Data
+@Getter
+@Setter
+@ToString(exclude = {"users", "accessibleDocuments", "permissions"})
 @NoArgsConstructor
 @AllArgsConstructor
 public class Role {
@@ -33,4 +39,69 @@ public class Role {
 
     @ManyToMany(mappedBy = "allowedRoles")
     private List<FormativeDocument> accessibleDocuments;
-}
\ No newline at end of file
+
+    // Compiladas ao carregar e ao salvar; os setters das permissões descartam o valor
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private RolePermissions permissions;
+
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    void compilePermissions() {
+        permissions = RolePermissions.of(this);
+    }
+
+    @JsonIgnore
+    public RolePermissions getPermissions() {
+        RolePermissions compiled = permissions;
+        if (compiled == null) {
+            compiled = RolePermissions.of(this);
+            permissions = compiled;
+        }
+        return compiled;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+        this.permissions = null;
+    }
+
+    public void setCanManageUsers(Boolean canManageUsers) {
+        this.canManageUsers = canManageUsers;
+        this.permissions = null;
+    }
+
+    public void setCanManageRoles(Boolean canManageRoles) {
+        this.canManageRoles = canManageRoles;
+        this.permissions = null;
+    }
+
+    public void setCanManageStages(Boolean canManageStages) {
+        this.canManageStages = canManageStages;
+        this.permissions = null;
+    }
+
+    public void setCanManageDocuments(Boolean canManageDocuments) {
+        this.canManageDocuments = canManageDocuments;
+        this.permissions = null;
+    }
+
+    // Identidade pelo id, sem percorrer as coleções lazy (o papel do usuário autenticado fica em cache)
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Role other)) {
+            return false;
+        }
+        return id != null && id.equals(other.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Role.class.hashCode();
+    }
+}
@@ -0,0 +1,79 @@
+package com.gestaoformativa.model;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+
+// Permissões de um papel compiladas em máscara de bits, com a lista de autoridades pronta.
+// Há uma instância compartilhada por máscara (são poucas combinações), então verificar
+// uma permissão é um AND e getAuthorities não aloca nada.
+public final class RolePermissions {
+
+    private static final List<GrantedAuthority> ADMIN_AUTHORITIES = List.of(new SimpleGrantedAuthority("ROLE_ADMIN"));
+    private static final List<GrantedAuthority> USER_AUTHORITIES = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+
+    private static final RolePermissions[] BY_MASK = new RolePermissions[1 << Permission.values().length];
+
+    static {
+        for (int mask = 0; mask < BY_MASK.length; mask++) {
+            BY_MASK[mask] = new RolePermissions(mask);
+        }
+    }
+
+    public static final RolePermissions NONE = BY_MASK[0];
+
+    private final int mask;
+    private final List<GrantedAuthority> authorities;
+
+    private RolePermissions(int mask) {
+        this.mask = mask;
+        this.authorities = Permission.ADMIN.isIn(mask) ? ADMIN_AUTHORITIES : USER_AUTHORITIES;
+    }
+
+    public static RolePermissions of(int mask) {
+        return BY_MASK[mask & (BY_MASK.length - 1)];
+    }
+
+    public static RolePermissions of(Role role) {
+        if (role == null) {
+            return NONE;
+        }
+        return of(role.getName(), role.getCanManageUsers(), role.getCanManageRoles(),
+                role.getCanManageStages(), role.getCanManageDocuments());
+    }
+
+    // A partir das colunas de roles, sem carregar a entidade
+    public static RolePermissions of(String roleName, Boolean canManageUsers, Boolean canManageRoles,
+                                     Boolean canManageStages, Boolean canManageDocuments) {
+        int mask = 0;
+        if (Boolean.TRUE.equals(canManageUsers)) {
+            mask |= Permission.USERS.bit();
+        }
+        if (Boolean.TRUE.equals(canManageRoles)) {
+            mask |= Permission.ROLES.bit();
+        }
+        if (Boolean.TRUE.equals(canManageStages)) {
+            mask |= Permission.STAGES.bit();
+        }
+        if (Boolean.TRUE.equals(canManageDocuments)) {
+            mask |= Permission.DOCUMENTS.bit();
+        }
+        if ("ADMIN".equalsIgnoreCase(roleName)) {
+            mask |= Permission.ADMIN.bit();
+        }
+        return of(mask);
+    }
+
+    public int getMask() {
+        return mask;
+    }
+
+    public boolean has(Permission permission) {
+        return permission != null && permission.isIn(mask);
+    }
+
+    public List<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+}
@@ -0,0 +1,81 @@
+package com.gestaoformativa.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+
+// Usuário autenticado montado a partir das claims do token, sem consultar o banco.
+// Tem o necessário para decisões de acesso (permissões do papel e regras de documentos);
+// quem precisa da entidade completa usa UserService.findByUsername.
+@Getter
+@AllArgsConstructor
+public class TokenPrincipal implements UserDetails {
+
+    private final Long userId;
+    private final String username;
+    private final Long tenantId;
+    private final Long roleId;
+    private final int permissions;
+    private final User.LifeStage lifeStage;
+    private final Long locationId;
+    private final int securityVersion;
+
+    public static TokenPrincipal of(User user) {
+        return new TokenPrincipal(
+                user.getId(),
+                user.getUsername(),
+                user.getTenantId(),
+                user.getRole() != null ? user.getRole().getId() : null,
+                RolePermissions.of(user.getRole()).getMask(),
+                user.getLifeStage(),
+                user.getMissionLocation() != null ? user.getMissionLocation().getId() : null,
+                user.getSecurityVersion() != null ? user.getSecurityVersion() : 0);
+    }
+
+    public boolean hasPermission(Permission permission) {
+        return permission != null && permission.isIn(permissions);
+    }
+
+    public boolean hasPermission(String permissionType) {
+        return hasPermission(Permission.fromName(permissionType));
+    }
+
+    public DocumentAccessProfile toAccessProfile() {
+        return new DocumentAccessProfile(userId, roleId, lifeStage, locationId, tenantId);
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return RolePermissions.of(permissions).getAuthorities();
+    }
+
+    // A senha nunca faz parte do token
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    // Conta desativada ou alterada incrementa a versão de segurança, invalidando o token
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+}
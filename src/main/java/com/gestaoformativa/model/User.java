@@ -5,7 +5,6 @@ import com.fasterxml.jackson.annotation.JsonValue;
 import jakarta.persistence.*;
 import lombok.*;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
@@ -87,6 +86,13 @@ public class User implements UserDetails {
 
     private Integer communityMonths;
 
+    // Atribuídos fora da entidade; a versão só muda por SecurityVersionService (UPDATE atômico)
+    @Column(name = "tenant_id", insertable = false, updatable = false)
+    private Long tenantId;
+
+    @Column(name = "security_version", insertable = false, updatable = false)
+    private Integer securityVersion;
+
     @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
     @JoinColumn(name = "user_id")
     private List<FormativeStage> formativeStages;
@@ -234,22 +240,13 @@ public class User implements UserDetails {
         return time.toString();
     }
 
+    public boolean hasPermission(Permission permission) {
+        return role != null && role.getPermissions().has(permission);
+    }
+
+    // Nomes "users", "roles", "stages" e "documents"
     public boolean hasPermission(String permissionType) {
-        if (role == null) return false;
-
-        switch (permissionType.toLowerCase()) {
-            case "users":
-                return role.getCanManageUsers();
-            case "roles":
-                return role.getCanManageRoles();
-            case "stages":
-                return role.getCanManageStages();
-            case "documents":
-                // Adicionando permissão para gerenciar documentos
-                return role.getCanManageDocuments();
-            default:
-                return false;
-        }
+        return hasPermission(Permission.fromName(permissionType));
     }
 
     public boolean canAccessDocument(FormativeDocument document) {
@@ -273,10 +270,7 @@ public class User implements UserDetails {
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        if (role != null && "ADMIN".equalsIgnoreCase(role.getName())) {
-            return Collections.singletonList(new SimpleGrantedAuthority("ROLE_ADMIN"));
-        }
-        return Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"));
+        return role != null ? role.getPermissions().getAuthorities() : RolePermissions.NONE.getAuthorities();
     }
 
     @Override
@@ -299,4 +293,22 @@ public class User implements UserDetails {
         return Boolean.TRUE.equals(isEnabled);
     }
 
+    // Identidade pelo id: o usuário autenticado vem do cache (desanexado) e é comparado
+    // com autores e formadores carregados na requisição
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof User other)) {
+            return false;
+        }
+        return id != null && id.equals(other.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return User.class.hashCode();
+    }
+
 }
\ No newline at end of file
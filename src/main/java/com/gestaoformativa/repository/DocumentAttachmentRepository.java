@@ -0,0 +1,13 @@
+package com.gestaoformativa.repository;
+
+import com.gestaoformativa.model.DocumentAttachment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface DocumentAttachmentRepository extends JpaRepository<DocumentAttachment, Long> {
+
+    Optional<DocumentAttachment> findByDocumentId(Long documentId);
+}
@@ -13,7 +13,7 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface DocumentReadingProgressRepository extends JpaRepository<DocumentReadingProgress, Long> {
+public interface DocumentReadingProgressRepository extends JpaRepository<DocumentReadingProgress, Long>, DocumentReadingProgressRepositoryCustom {
 
     Optional<DocumentReadingProgress> findByUserAndDocument(User user, FormativeDocument document);
 
@@ -0,0 +1,13 @@
+package com.gestaoformativa.repository;
+
+import com.gestaoformativa.model.DocumentReadingProgress;
+
+import java.util.List;
+import java.util.Map;
+
+public interface DocumentReadingProgressRepositoryCustom {
+
+    DocumentReadingProgress upsertProgress(Long userId, Long documentId, int progressPercentage, String userNotes);
+
+    List<DocumentReadingProgress> upsertProgressBatch(Long userId, Map<Long, Integer> progressByDocument);
+}
@@ -0,0 +1,125 @@
+package com.gestaoformativa.repository;
+
+import com.gestaoformativa.model.DocumentReadingProgress;
+import com.gestaoformativa.model.FormativeDocument;
+import com.gestaoformativa.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Gravação do progresso em um único comando (INSERT ... ON CONFLICT DO UPDATE ... RETURNING),
+// sem a leitura prévia e sem a corrida contra UNIQUE(user_id, document_id) quando o mesmo
+// documento está aberto em mais de uma aba. O progresso nunca diminui e a data de conclusão
+// é definida uma única vez, no mesmo comando.
+public class DocumentReadingProgressRepositoryImpl implements DocumentReadingProgressRepositoryCustom {
+
+    // Regras de combinação com a linha existente, usadas também pelo ReadingProgressBuffer
+    public static final String ON_CONFLICT_MERGE =
+            "ON CONFLICT (user_id, document_id) DO UPDATE SET " +
+            "progress_percentage = GREATEST(document_reading_progress.progress_percentage, EXCLUDED.progress_percentage), " +
+            "completed = COALESCE(document_reading_progress.completed, false) OR EXCLUDED.completed, " +
+            "first_view_date = LEAST(document_reading_progress.first_view_date, EXCLUDED.first_view_date), " +
+            "last_view_date = GREATEST(document_reading_progress.last_view_date, EXCLUDED.last_view_date), " +
+            "completed_date = COALESCE(document_reading_progress.completed_date, EXCLUDED.completed_date), " +
+            "user_notes = COALESCE(EXCLUDED.user_notes, document_reading_progress.user_notes) ";
+
+    private static final String RETURNING =
+            "RETURNING id, user_id, document_id, progress_percentage, completed, " +
+            "first_view_date, last_view_date, completed_date, user_notes";
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO document_reading_progress (user_id, document_id, progress_percentage, completed, " +
+            "first_view_date, last_view_date, completed_date, user_notes) " +
+            "VALUES (?, ?, ?, ? >= 100, now(), now(), CASE WHEN ? >= 100 THEN now() END, ?) " +
+            ON_CONFLICT_MERGE + RETURNING;
+
+    // Os pares chegam como dois arrays; o GROUP BY garante uma linha por documento,
+    // já que o ON CONFLICT não pode atualizar a mesma linha duas vezes no mesmo comando
+    private static final String UPSERT_BATCH_SQL =
+            "INSERT INTO document_reading_progress (user_id, document_id, progress_percentage, completed, " +
+            "first_view_date, last_view_date, completed_date) " +
+            "SELECT ?, t.document_id, max(t.progress), max(t.progress) >= 100, now(), now(), " +
+            "CASE WHEN max(t.progress) >= 100 THEN now() END " +
+            "FROM unnest(?::bigint[], ?::integer[]) AS t(document_id, progress) " +
+            "GROUP BY t.document_id ORDER BY t.document_id " +
+            ON_CONFLICT_MERGE + RETURNING;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public DocumentReadingProgress upsertProgress(Long userId, Long documentId, int progressPercentage, String userNotes) {
+        return jdbcTemplate.queryForObject(UPSERT_SQL, progressRowMapper(),
+                userId, documentId, progressPercentage, progressPercentage, progressPercentage, userNotes);
+    }
+
+    @Override
+    @Transactional
+    public List<DocumentReadingProgress> upsertProgressBatch(Long userId, Map<Long, Integer> progressByDocument) {
+        if (progressByDocument.isEmpty()) {
+            return List.of();
+        }
+        List<Long> documentIds = new ArrayList<>(progressByDocument.keySet());
+        Long[] ids = documentIds.toArray(new Long[0]);
+        Integer[] progress = documentIds.stream().map(progressByDocument::get).toArray(Integer[]::new);
+
+        return jdbcTemplate.execute((ConnectionCallback<List<DocumentReadingProgress>>) connection -> {
+            Array idArray = connection.createArrayOf("bigint", ids);
+            Array progressArray = connection.createArrayOf("integer", progress);
+            try (PreparedStatement ps = connection.prepareStatement(UPSERT_BATCH_SQL)) {
+                ps.setLong(1, userId);
+                ps.setArray(2, idArray);
+                ps.setArray(3, progressArray);
+                List<DocumentReadingProgress> rows = new ArrayList<>();
+                try (ResultSet rs = ps.executeQuery()) {
+                    RowMapper<DocumentReadingProgress> mapper = progressRowMapper();
+                    while (rs.next()) {
+                        rows.add(mapper.mapRow(rs, rows.size()));
+                    }
+                }
+                return rows;
+            } finally {
+                idArray.free();
+                progressArray.free();
+            }
+        });
+    }
+
+    // Usuário e documento ficam como referências (sem consulta); só os ids são usados pelos DTOs
+    private RowMapper<DocumentReadingProgress> progressRowMapper() {
+        return (rs, rowNum) -> {
+            DocumentReadingProgress progress = new DocumentReadingProgress();
+            progress.setId(rs.getLong("id"));
+            progress.setUser(entityManager.getReference(User.class, rs.getLong("user_id")));
+            progress.setDocument(entityManager.getReference(FormativeDocument.class, rs.getLong("document_id")));
+            progress.setProgressPercentage(rs.getInt("progress_percentage"));
+            progress.setCompleted(rs.getBoolean("completed"));
+            progress.setFirstViewDate(toLocalDateTime(rs.getTimestamp("first_view_date")));
+            progress.setLastViewDate(toLocalDateTime(rs.getTimestamp("last_view_date")));
+            progress.setCompletedDate(toLocalDateTime(rs.getTimestamp("completed_date")));
+            progress.setUserNotes(rs.getString("user_notes"));
+            return progress;
+        };
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
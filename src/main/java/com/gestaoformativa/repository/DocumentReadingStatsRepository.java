@@ -0,0 +1,9 @@
+package com.gestaoformativa.repository;
+
+import com.gestaoformativa.model.DocumentReadingStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DocumentReadingStatsRepository extends JpaRepository<DocumentReadingStats, Long> {
+}
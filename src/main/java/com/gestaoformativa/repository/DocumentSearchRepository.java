@@ -1,8 +1,8 @@
 package com.gestaoformativa.repository;
 
+import com.gestaoformativa.dto.DocumentSummaryDTO;
+import com.gestaoformativa.model.DocumentAccessProfile;
 import com.gestaoformativa.model.FormativeDocument;
-import com.gestaoformativa.model.MissionLocation;
-import com.gestaoformativa.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -12,51 +12,82 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface DocumentSearchRepository extends JpaRepository<FormativeDocument, Long>, JpaSpecificationExecutor<FormativeDocument> {
-
-    @Query("SELECT d FROM FormativeDocument d WHERE " +
-            "(:title IS NULL OR LOWER(d.title) LIKE LOWER(CONCAT('%', :title, '%'))) AND " +
-            "(:author IS NULL OR d.author = :author) AND " +
-            "(:documentType IS NULL OR d.documentType = :documentType) AND " +
-            "(:accessLevel IS NULL OR d.accessLevel = :accessLevel) AND " +
-            "(:stage IS NULL OR :stage IN (SELECT ls FROM FormativeDocument fd JOIN fd.allowedStages ls WHERE fd = d)) AND " +
-            "(:location IS NULL OR :location IN (SELECT ml FROM FormativeDocument fd JOIN fd.allowedLocations ml WHERE fd = d)) AND " +
-            "(:fromDate IS NULL OR d.creationDate >= :fromDate) AND " +
-            "(:toDate IS NULL OR d.creationDate <= :toDate) AND " +
-            "(:keyword IS NULL OR LOWER(d.keywords) LIKE LOWER(CONCAT('%', :keyword, '%')))")
-    Page<FormativeDocument> searchDocuments(
-            @Param("title") String title,
-            @Param("author") User author,
-            @Param("documentType") FormativeDocument.DocumentType documentType,
-            @Param("accessLevel") FormativeDocument.AccessLevel accessLevel,
-            @Param("stage") User.LifeStage stage,
-            @Param("location") MissionLocation location,
-            @Param("fromDate") LocalDateTime fromDate,
-            @Param("toDate") LocalDateTime toDate,
-            @Param("keyword") String keyword,
-            Pageable pageable);
-
-    @Query(value = """
-        SELECT DISTINCT * FROM formative_documents d
-        WHERE LOWER(d.content::text) LIKE LOWER(CONCAT('%', :text, '%'))
-           OR LOWER(d.title) LIKE LOWER(CONCAT('%', :text, '%'))
-           OR LOWER(d.keywords) LIKE LOWER(CONCAT('%', :text, '%'))
-        """, nativeQuery = true)
-    List<FormativeDocument> searchByContent(@Param("text") String text);
-
-    List<FormativeDocument> findTop10ByOrderByLastModifiedDateDesc();
-
-    @Query("SELECT d, COUNT(p) as viewCount FROM FormativeDocument d JOIN DocumentReadingProgress p " +
-            "ON p.document = d GROUP BY d ORDER BY viewCount DESC")
-    List<FormativeDocument> findMostViewedDocuments(Pageable pageable);
-
-    @Query("SELECT d FROM FormativeDocument d WHERE " +
-            "d NOT IN (SELECT p.document FROM DocumentReadingProgress p WHERE p.user = :user) AND " +
-            "((d.accessLevel = 'STAGE_BASED' AND :#{#user.lifeStage} IN (SELECT ls FROM FormativeDocument fd JOIN fd.allowedStages ls WHERE fd = d)) OR " +
-            "(d.accessLevel = 'LOCATION_BASED' AND :#{#user.missionLocation} IN (SELECT ml FROM FormativeDocument fd JOIN fd.allowedLocations ml WHERE fd = d)) OR " +
-            "d.accessLevel = 'PUBLIC')")
-    List<FormativeDocument> findRecommendedDocumentsForUser(@Param("user") User user, Pageable pageable);
+public interface DocumentSearchRepository extends JpaRepository<FormativeDocument, Long>, JpaSpecificationExecutor<FormativeDocument>,
+        DocumentSearchRepositoryCustom {
+
+    // Busca textual pelo search_vector (título, palavras-chave e conteúdo), já filtrada pelo acesso do usuário
+    String CONTENT_MATCH_CONDITION =
+            "FROM formative_documents d " +
+            "CROSS JOIN websearch_to_tsquery('portuguese_unaccent', :text) q " +
+            "WHERE d.search_vector @@ q AND " + FormativeDocumentRepository.ACCESSIBLE_TO_PROFILE_SQL;
+
+    @Query(value = "SELECT d.id AS id, d.title AS title, d.document_type AS documentType, d.access_level AS accessLevel, " +
+            "d.author_id AS authorId, (SELECT a.name FROM users a WHERE a.id = d.author_id) AS authorName, " +
+            "d.creation_date AS creationDate, d.last_modified_date AS lastModifiedDate, d.keywords AS keywords, " +
+            "ts_rank(d.search_vector, q) AS rank " +
+            CONTENT_MATCH_CONDITION + " " +
+            "ORDER BY rank DESC, d.id DESC",
+            countQuery = "SELECT COUNT(*) " + CONTENT_MATCH_CONDITION,
+            nativeQuery = true)
+    Page<ContentMatch> searchByContent(@Param("text") String text,
+                                       @Param("profile") DocumentAccessProfile profile,
+                                       Pageable pageable);
+
+    // Trechos destacados calculados apenas para os documentos da página atual
+    @Query(value = "SELECT d.id AS id, ts_headline('portuguese_unaccent', COALESCE(d.content, ''), " +
+            "websearch_to_tsquery('portuguese_unaccent', :text), " +
+            "'StartSel=<mark>, StopSel=</mark>, MaxWords=35, MinWords=15, MaxFragments=2, FragmentDelimiter=\" ... \"') AS headline " +
+            "FROM formative_documents d WHERE d.id IN (:ids)",
+            nativeQuery = true)
+    List<ContentHeadline> findContentHeadlines(@Param("text") String text, @Param("ids") Collection<Long> ids);
+
+    interface ContentMatch {
+        Long getId();
+
+        String getTitle();
+
+        String getDocumentType();
+
+        String getAccessLevel();
+
+        Long getAuthorId();
+
+        String getAuthorName();
+
+        LocalDateTime getCreationDate();
+
+        LocalDateTime getLastModifiedDate();
+
+        String getKeywords();
+
+        Double getRank();
+    }
+
+    interface ContentHeadline {
+        Long getId();
+
+        String getHeadline();
+    }
+
+    @Query(FormativeDocumentRepository.SUMMARY_SELECT + "WHERE " + FormativeDocumentRepository.ACCESSIBLE_TO_PROFILE +
+            " ORDER BY d.lastModifiedDate DESC NULLS LAST, d.id DESC")
+    List<DocumentSummaryDTO> findRecentlyUpdatedSummaries(@Param("profile") DocumentAccessProfile profile, Pageable pageable);
+
+    // Ids dos documentos acessíveis mais lidos, percorrendo os agregados já ordenados por leitores
+    @Query("SELECT d.id FROM DocumentReadingStats s JOIN FormativeDocument d ON d.id = s.documentId " +
+            "WHERE s.readerCount > 0 AND " + FormativeDocumentRepository.ACCESSIBLE_TO_PROFILE +
+            " ORDER BY s.readerCount DESC, s.documentId DESC")
+    List<Long> findMostViewedDocumentIds(@Param("profile") DocumentAccessProfile profile, Pageable pageable);
+
+    // Consulta usada quando as listas pré-calculadas não podem responder: documentos acessíveis
+    // ainda não lidos, com as mesmas regras de acesso das demais listagens
+    @Query("SELECT d.id FROM FormativeDocument d WHERE " +
+            "NOT EXISTS (SELECT 1 FROM DocumentReadingProgress p WHERE p.document = d AND p.user.id = :#{#profile.userId}) AND " +
+            FormativeDocumentRepository.ACCESSIBLE_TO_PROFILE +
+            " ORDER BY d.id DESC")
+    List<Long> findRecommendedDocumentIdsForUser(@Param("profile") DocumentAccessProfile profile, Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.gestaoformativa.repository;
+
+import com.gestaoformativa.dto.DocumentSearchFilter;
+import com.gestaoformativa.dto.DocumentSummaryDTO;
+import com.gestaoformativa.model.DocumentAccessProfile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface DocumentSearchRepositoryCustom {
+
+    // Busca com filtros e regras de acesso aplicados na consulta, com contagem separada
+    Page<DocumentSummaryDTO> searchDocuments(DocumentSearchFilter filter, DocumentAccessProfile profile, Pageable pageable);
+
+    // Continuação da lista de recomendações: documentos acessíveis ainda não lidos fora de "excluded",
+    // na mesma ordem de findRecommendedDocumentIdsForUser, a partir de um offset qualquer
+    List<Long> findRecommendedDocumentIdsForUser(DocumentAccessProfile profile, Collection<Long> excluded, int offset, int limit);
+}
@@ -0,0 +1,229 @@
+package com.gestaoformativa.repository;
+
+import com.gestaoformativa.dto.DocumentSearchFilter;
+import com.gestaoformativa.dto.DocumentSummaryDTO;
+import com.gestaoformativa.model.DocumentAccessProfile;
+import com.gestaoformativa.model.DocumentReadingProgress;
+import com.gestaoformativa.model.FormativeDocument;
+import com.gestaoformativa.model.MissionLocation;
+import com.gestaoformativa.model.Role;
+import com.gestaoformativa.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// Monta a busca de documentos só com os filtros informados (sem "(:x IS NULL OR ...)", que impede
+// o uso de índices) e com as regras de acesso do usuário na própria consulta, de modo que a página
+// e o total já saem corretos. A contagem é uma consulta à parte, sem ordenação, e só é executada
+// quando o total não pode ser deduzido da própria página. A consulta filtrada seleciona apenas os ids;
+// os resumos da página são lidos depois, sem o conteúdo dos documentos.
+public class DocumentSearchRepositoryImpl implements DocumentSearchRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<DocumentSummaryDTO> searchDocuments(DocumentSearchFilter filter, DocumentAccessProfile profile, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<FormativeDocument> document = query.from(FormativeDocument.class);
+        query.select(document.get("id"))
+                .where(conditions(cb, query, document, filter, profile))
+                .orderBy(orders(cb, document, pageable.getSort()));
+
+        TypedQuery<Long> idQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            idQuery.setFirstResult((int) pageable.getOffset());
+            idQuery.setMaxResults(pageable.getPageSize());
+        }
+        List<Long> ids = idQuery.getResultList();
+
+        return PageableExecutionUtils.getPage(summaries(ids), pageable, () -> count(cb, filter, profile));
+    }
+
+    @Override
+    public List<Long> findRecommendedDocumentIdsForUser(DocumentAccessProfile profile, Collection<Long> excluded,
+                                                        int offset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<FormativeDocument> document = query.from(FormativeDocument.class);
+
+        Subquery<Integer> read = query.subquery(Integer.class);
+        Root<DocumentReadingProgress> progress = read.from(DocumentReadingProgress.class);
+        read.select(cb.literal(1))
+                .where(cb.equal(progress.get("document"), document),
+                        cb.equal(progress.get("user").get("id"), profile.getUserId()));
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.not(cb.exists(read)));
+        if (!excluded.isEmpty()) {
+            predicates.add(cb.not(document.get("id").in(excluded)));
+        }
+        predicates.add(accessibleTo(cb, query, document, profile));
+
+        query.select(document.get("id"))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(document.get("id")));
+        return entityManager.createQuery(query)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private List<DocumentSummaryDTO> summaries(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, DocumentSummaryDTO> byId = new HashMap<>();
+        entityManager.createQuery(FormativeDocumentRepository.SUMMARY_SELECT + "WHERE d.id IN :ids", DocumentSummaryDTO.class)
+                .setParameter("ids", ids)
+                .getResultList()
+                .forEach(summary -> byId.put(summary.getId(), summary));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
+    private long count(CriteriaBuilder cb, DocumentSearchFilter filter, DocumentAccessProfile profile) {
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<FormativeDocument> document = query.from(FormativeDocument.class);
+        query.select(cb.count(document))
+                .where(conditions(cb, query, document, filter, profile));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private Predicate[] conditions(CriteriaBuilder cb, CriteriaQuery<?> query, Root<FormativeDocument> document,
+                                   DocumentSearchFilter filter, DocumentAccessProfile profile) {
+        List<Predicate> predicates = new ArrayList<>();
+
+        if (filter.getTitle() != null && !filter.getTitle().isBlank()) {
+            predicates.add(cb.like(cb.lower(document.get("title")), containsPattern(filter.getTitle()), '\\'));
+        }
+        if (filter.getAuthorId() != null) {
+            predicates.add(cb.equal(document.get("author").get("id"), filter.getAuthorId()));
+        }
+        if (filter.getDocumentType() != null) {
+            predicates.add(cb.equal(document.get("documentType"), filter.getDocumentType()));
+        }
+        if (filter.getAccessLevel() != null) {
+            predicates.add(cb.equal(document.get("accessLevel"), filter.getAccessLevel()));
+        }
+        if (filter.getStage() != null) {
+            predicates.add(hasStage(cb, query, document, filter.getStage()));
+        }
+        if (filter.getLocationId() != null) {
+            predicates.add(hasLocation(cb, query, document, filter.getLocationId()));
+        }
+        if (filter.getFromDate() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(document.get("creationDate"), filter.getFromDate()));
+        }
+        if (filter.getToDate() != null) {
+            predicates.add(cb.lessThanOrEqualTo(document.get("creationDate"), filter.getToDate()));
+        }
+        if (filter.getKeyword() != null && !filter.getKeyword().isBlank()) {
+            predicates.add(cb.like(cb.lower(document.get("keywords")), containsPattern(filter.getKeyword()), '\\'));
+        }
+
+        predicates.add(accessibleTo(cb, query, document, profile));
+        return predicates.toArray(new Predicate[0]);
+    }
+
+    // Mesmas regras de FormativeDocumentRepository.ACCESSIBLE_TO_PROFILE
+    private Predicate accessibleTo(CriteriaBuilder cb, CriteriaQuery<?> query, Root<FormativeDocument> document,
+                                   DocumentAccessProfile profile) {
+        List<Predicate> rules = new ArrayList<>();
+        rules.add(cb.equal(document.get("author").get("id"), profile.getUserId()));
+        rules.add(cb.equal(document.get("accessLevel"), FormativeDocument.AccessLevel.PUBLIC));
+
+        List<Predicate> restricted = new ArrayList<>();
+        restricted.add(hasAllowedUser(cb, query, document, profile.getUserId()));
+        if (profile.getRoleId() != null) {
+            restricted.add(hasAllowedRole(cb, query, document, profile.getRoleId()));
+        }
+        rules.add(cb.and(
+                cb.equal(document.get("accessLevel"), FormativeDocument.AccessLevel.RESTRICTED),
+                cb.or(restricted.toArray(new Predicate[0]))));
+
+        if (profile.getLifeStage() != null) {
+            rules.add(cb.and(
+                    cb.equal(document.get("accessLevel"), FormativeDocument.AccessLevel.STAGE_BASED),
+                    hasStage(cb, query, document, profile.getLifeStage())));
+        }
+        if (profile.getLocationId() != null) {
+            rules.add(cb.and(
+                    cb.equal(document.get("accessLevel"), FormativeDocument.AccessLevel.LOCATION_BASED),
+                    hasLocation(cb, query, document, profile.getLocationId())));
+        }
+
+        return cb.or(rules.toArray(new Predicate[0]));
+    }
+
+    private Predicate hasAllowedUser(CriteriaBuilder cb, CriteriaQuery<?> query, Root<FormativeDocument> document, Long userId) {
+        Subquery<Long> subquery = query.subquery(Long.class);
+        Root<FormativeDocument> correlated = subquery.correlate(document);
+        Join<FormativeDocument, User> user = correlated.join("allowedUsers");
+        subquery.select(user.get("id")).where(cb.equal(user.get("id"), userId));
+        return cb.exists(subquery);
+    }
+
+    private Predicate hasAllowedRole(CriteriaBuilder cb, CriteriaQuery<?> query, Root<FormativeDocument> document, Long roleId) {
+        Subquery<Long> subquery = query.subquery(Long.class);
+        Root<FormativeDocument> correlated = subquery.correlate(document);
+        Join<FormativeDocument, Role> role = correlated.join("allowedRoles");
+        subquery.select(role.get("id")).where(cb.equal(role.get("id"), roleId));
+        return cb.exists(subquery);
+    }
+
+    private Predicate hasStage(CriteriaBuilder cb, CriteriaQuery<?> query, Root<FormativeDocument> document, User.LifeStage stage) {
+        Subquery<Integer> subquery = query.subquery(Integer.class);
+        Root<FormativeDocument> correlated = subquery.correlate(document);
+        Join<FormativeDocument, User.LifeStage> allowedStage = correlated.join("allowedStages");
+        subquery.select(cb.literal(1)).where(cb.equal(allowedStage, stage));
+        return cb.exists(subquery);
+    }
+
+    private Predicate hasLocation(CriteriaBuilder cb, CriteriaQuery<?> query, Root<FormativeDocument> document, Long locationId) {
+        Subquery<Long> subquery = query.subquery(Long.class);
+        Root<FormativeDocument> correlated = subquery.correlate(document);
+        Join<FormativeDocument, MissionLocation> location = correlated.join("allowedLocations");
+        subquery.select(location.get("id")).where(cb.equal(location.get("id"), locationId));
+        return cb.exists(subquery);
+    }
+
+    // Ordenação pedida pelo cliente, com o id como desempate para que as páginas sejam estáveis
+    private List<Order> orders(CriteriaBuilder cb, Root<FormativeDocument> document, Sort sort) {
+        List<Order> orders = new ArrayList<>(QueryUtils.toOrders(sort, document, cb));
+        if (sort.isUnsorted()) {
+            orders.add(cb.desc(document.get("creationDate")));
+        }
+        if (sort.getOrderFor("id") == null) {
+            orders.add(cb.desc(document.get("id")));
+        }
+        return orders;
+    }
+
+    private static String containsPattern(String text) {
+        return "%" + text.toLowerCase()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+    }
+}
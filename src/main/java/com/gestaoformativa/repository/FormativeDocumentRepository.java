@@ -1,14 +1,18 @@
 package com.gestaoformativa.repository;
 
+import com.gestaoformativa.dto.DocumentSummaryDTO;
+import com.gestaoformativa.model.DocumentAccessProfile;
 import com.gestaoformativa.model.FormativeDocument;
 import com.gestaoformativa.model.MissionLocation;
 import com.gestaoformativa.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -30,13 +34,69 @@ public interface FormativeDocumentRepository extends JpaRepository<FormativeDocu
     List<FormativeDocument> findByDocumentTypeAndAllowedLocationsContaining(
             FormativeDocument.DocumentType documentType, MissionLocation location);
 
-    @Query("SELECT d FROM FormativeDocument d WHERE d.accessLevel = 'PUBLIC' OR " +
-            "d.author = :user OR " +
-            "d IN (SELECT d FROM FormativeDocument d JOIN d.allowedUsers u WHERE u = :user) OR " +
-            "d IN (SELECT d FROM FormativeDocument d JOIN d.allowedRoles r WHERE r = :#{#user.role}) OR " +
-            "(d.accessLevel = 'STAGE_BASED' AND :#{#user.lifeStage} IN (SELECT ls FROM FormativeDocument d JOIN d.allowedStages ls WHERE d = d)) OR " +
-            "(d.accessLevel = 'LOCATION_BASED' AND :#{#user.missionLocation} IN (SELECT ml FROM FormativeDocument d JOIN d.allowedLocations ml WHERE d = d))")
-    List<FormativeDocument> findAccessibleDocumentsForUser(@Param("user") User user);
+    // Regras de FormativeDocument.canBeAccessedBy avaliadas no banco a partir de um DocumentAccessProfile
+    String ACCESSIBLE_TO_PROFILE =
+            "(d.author.id = :#{#profile.userId} OR " +
+            "d.accessLevel = 'PUBLIC' OR " +
+            "(d.accessLevel = 'RESTRICTED' AND (" +
+            "EXISTS (SELECT 1 FROM FormativeDocument du JOIN du.allowedUsers u WHERE du = d AND u.id = :#{#profile.userId}) OR " +
+            "EXISTS (SELECT 1 FROM FormativeDocument dr JOIN dr.allowedRoles r WHERE dr = d AND r.id = :#{#profile.roleId}))) OR " +
+            "(d.accessLevel = 'STAGE_BASED' AND " +
+            "EXISTS (SELECT 1 FROM FormativeDocument ds JOIN ds.allowedStages ls WHERE ds = d AND ls = :#{#profile.lifeStage})) OR " +
+            "(d.accessLevel = 'LOCATION_BASED' AND " +
+            "EXISTS (SELECT 1 FROM FormativeDocument dl JOIN dl.allowedLocations ml WHERE dl = d AND ml.id = :#{#profile.locationId})))";
+
+    // As mesmas regras para consultas nativas, com formative_documents no alias d
+    String ACCESSIBLE_TO_PROFILE_SQL =
+            "(d.author_id = :#{#profile.userId} OR " +
+            "d.access_level = 'PUBLIC' OR " +
+            "(d.access_level = 'RESTRICTED' AND (" +
+            "EXISTS (SELECT 1 FROM document_allowed_users du WHERE du.document_id = d.id AND du.user_id = :#{#profile.userId}) OR " +
+            "EXISTS (SELECT 1 FROM document_allowed_roles dr WHERE dr.document_id = d.id AND dr.role_id = :#{#profile.roleId}))) OR " +
+            "(d.access_level = 'STAGE_BASED' AND " +
+            "EXISTS (SELECT 1 FROM document_allowed_stages ds WHERE ds.document_id = d.id AND ds.life_stage = :#{#profile.lifeStage?.name()})) OR " +
+            "(d.access_level = 'LOCATION_BASED' AND " +
+            "EXISTS (SELECT 1 FROM document_allowed_locations dl WHERE dl.document_id = d.id AND dl.location_id = :#{#profile.locationId})))";
+
+    @Query("SELECT d FROM FormativeDocument d WHERE " + ACCESSIBLE_TO_PROFILE)
+    List<FormativeDocument> findAccessibleDocumentsForUser(@Param("profile") DocumentAccessProfile profile);
+
+    // Somente as colunas de resumo (sem o conteúdo), com autor e metadados do anexo
+    String SUMMARY_SELECT =
+            "SELECT new com.gestaoformativa.dto.DocumentSummaryDTO(" +
+            "d.id, d.title, d.documentType, d.accessLevel, a.id, a.name, " +
+            "d.creationDate, d.lastModifiedDate, d.keywords, att.fileName, att.contentType, att.sizeBytes) " +
+            "FROM FormativeDocument d LEFT JOIN d.author a " +
+            "LEFT JOIN DocumentAttachment att ON att.document = d ";
+
+    @Query(SUMMARY_SELECT + "WHERE " + ACCESSIBLE_TO_PROFILE + " ORDER BY d.id DESC")
+    List<DocumentSummaryDTO> findAccessibleSummaries(@Param("profile") DocumentAccessProfile profile);
+
+    // Listagem keyset: ordenada por id decrescente a partir do cursor
+    @Query(SUMMARY_SELECT + "WHERE d.id < :cursor AND " + ACCESSIBLE_TO_PROFILE + " ORDER BY d.id DESC")
+    List<DocumentSummaryDTO> findAccessibleSummariesBefore(@Param("profile") DocumentAccessProfile profile,
+                                                          @Param("cursor") Long cursor,
+                                                          Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE d.documentType = 'STAGE_SPECIFIC' AND " +
+            "EXISTS (SELECT 1 FROM FormativeDocument fs JOIN fs.allowedStages st WHERE fs = d AND st = :stage) AND " +
+            ACCESSIBLE_TO_PROFILE + " ORDER BY d.id DESC")
+    List<DocumentSummaryDTO> findAccessibleSummariesForStage(@Param("profile") DocumentAccessProfile profile,
+                                                            @Param("stage") User.LifeStage stage);
+
+    @Query(SUMMARY_SELECT + "WHERE d.documentType = 'LOCATION_SPECIFIC' AND " +
+            "EXISTS (SELECT 1 FROM FormativeDocument fl JOIN fl.allowedLocations loc WHERE fl = d AND loc.id = :locationId) AND " +
+            ACCESSIBLE_TO_PROFILE + " ORDER BY d.id DESC")
+    List<DocumentSummaryDTO> findAccessibleSummariesForLocation(@Param("profile") DocumentAccessProfile profile,
+                                                               @Param("locationId") Long locationId);
+
+    // Dentre os ids informados, os dos documentos acessíveis ao perfil
+    @Query("SELECT d.id FROM FormativeDocument d WHERE d.id IN :ids AND " + ACCESSIBLE_TO_PROFILE)
+    List<Long> findAccessibleIdsIn(@Param("profile") DocumentAccessProfile profile, @Param("ids") Collection<Long> ids);
+
+    // Resumos de documentos já selecionados (a ordem é definida por quem chama)
+    @Query(SUMMARY_SELECT + "WHERE d.id IN :ids")
+    List<DocumentSummaryDTO> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
 
     List<FormativeDocument> findByKeywordsContainingIgnoreCase(String keyword);
 
@@ -0,0 +1,47 @@
+package com.gestaoformativa.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+// Armazenamento do conteúdo dos anexos endereçado pelo hash SHA-256.
+// A contagem de referências fica no banco (attachment_blobs); o store só guarda os bytes.
+public interface BlobStore {
+
+    // Grava o conteúdo em área temporária calculando o hash. Nada fica visível até commit().
+    StagedBlob stage(InputStream input) throws IOException;
+
+    // Publica o conteúdo sob o seu hash. Se o blob já existir o temporário é descartado (deduplicação).
+    void commit(StagedBlob staged) throws IOException;
+
+    void discard(StagedBlob staged);
+
+    // Remove temporários abandonados (uploads interrompidos)
+    void purgeStaging(Instant olderThan) throws IOException;
+
+    boolean exists(String hash);
+
+    InputStream open(String hash, long offset, long length) throws IOException;
+
+    // Caminho local do blob, quando o store é em disco (permite sendfile no download)
+    Optional<Path> localPath(String hash);
+
+    void delete(String hash) throws IOException;
+
+    // Percorre os blobs armazenados com a data da última modificação, usado pela coleta de órfãos
+    void forEachStored(BiConsumer<String, Instant> consumer) throws IOException;
+
+    @Getter
+    @AllArgsConstructor
+    class StagedBlob {
+        private final String hash;
+        private final long size;
+        private final Path tempFile;
+    }
+}
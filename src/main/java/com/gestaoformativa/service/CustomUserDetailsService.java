@@ -1,23 +1,49 @@
 package com.gestaoformativa.service;
 
+import com.gestaoformativa.model.User;
 import com.gestaoformativa.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+@Slf4j
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
     @Override
     @Transactional(readOnly = true)
-    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+    public User loadUserByUsername(String username) throws UsernameNotFoundException {
         return userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("Usuário não encontrado: " + username));
     }
+
+    // Chamado pelo DaoAuthenticationProvider após um login válido quando o hash guardado usa
+    // custo menor que o configurado (app.security.bcrypt-strength): grava o novo hash da mesma senha
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        User entity = userRepository.findByUsername(user.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("Usuário não encontrado: " + user.getUsername()));
+        entity.setPassword(newPassword);
+        User saved = userRepository.save(entity);
+        principalCache.invalidateUser(saved.getId());
+        log.info("Hash de senha do usuário {} atualizado para o custo configurado", saved.getId());
+        return saved;
+    }
+
+    // Usado pelo filtro JWT a cada requisição; o login continua consultando o banco
+    public User loadAuthenticatedUser(String username) throws UsernameNotFoundException {
+        return principalCache.get(username, this::loadUserByUsername);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,460 @@
+package com.gestaoformativa.service;
+
+import com.gestaoformativa.model.DocumentAccessProfile;
+import com.gestaoformativa.model.FormativeDocument;
+import com.gestaoformativa.model.MissionLocation;
+import com.gestaoformativa.model.Role;
+import com.gestaoformativa.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+// Índice em memória das regras de acesso dos documentos.
+// Os conjuntos por nível de acesso e etapa (densos) são BitSets; os por usuário, autor, papel e
+// localização (poucos documentos por chave) são int[] ordenados (SortedIntSet). Verificar o acesso
+// de um usuário é um teste de bits e "documentos visíveis" é uma combinação de OR/AND,
+// sem carregar as coleções lazy do FormativeDocument.
+@Slf4j
+@Service
+public class DocumentAccessIndex {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate snapshotTemplate;
+    private final boolean enabled;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final EnumMap<FormativeDocument.AccessLevel, BitSet> byAccessLevel = new EnumMap<>(FormativeDocument.AccessLevel.class);
+    private final EnumMap<User.LifeStage, BitSet> byStage = new EnumMap<>(User.LifeStage.class);
+    private final Map<Long, SortedIntSet> byAuthor = new HashMap<>();
+    private final Map<Long, SortedIntSet> byUser = new HashMap<>();
+    private final Map<Long, SortedIntSet> byRole = new HashMap<>();
+    private final Map<Long, SortedIntSet> byLocation = new HashMap<>();
+    private final BitSet indexed = new BitSet();
+    // Alterações recebidas durante uma reconstrução, reaplicadas sobre o resultado dela
+    private List<Runnable> deferred;
+
+    private volatile boolean ready = false;
+
+    private final Counter hits;
+    private final Counter fallbacks;
+    private final Timer rebuildTimer;
+
+    public DocumentAccessIndex(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.document-access-index.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        // As cinco consultas da reconstrução leem o mesmo snapshot do banco
+        this.snapshotTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.snapshotTemplate.setReadOnly(true);
+
+        this.hits = Counter.builder("document.access.index.lookups")
+                .description("Verificações de acesso respondidas pelo índice")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.fallbacks = Counter.builder("document.access.index.lookups")
+                .description("Verificações de acesso que precisaram consultar a entidade")
+                .tag("result", "fallback")
+                .register(meterRegistry);
+        this.rebuildTimer = Timer.builder("document.access.index.rebuild")
+                .description("Tempo de reconstrução completa do índice de acesso")
+                .register(meterRegistry);
+        Gauge.builder("document.access.index.documents", this, DocumentAccessIndex::size)
+                .description("Documentos presentes no índice de acesso")
+                .register(meterRegistry);
+        Gauge.builder("document.access.index.hit.ratio", this, DocumentAccessIndex::hitRatio)
+                .description("Proporção de verificações respondidas pelo índice")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    // Reconstrução periódica para corrigir eventuais divergências (ex.: alterações feitas direto no banco)
+    @Scheduled(fixedDelayString = "${app.document-access-index.rebuild-interval-ms:900000}",
+            initialDelayString = "${app.document-access-index.rebuild-interval-ms:900000}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        beginBulk();
+        try {
+            EnumMap<FormativeDocument.AccessLevel, BitSet> levels = new EnumMap<>(FormativeDocument.AccessLevel.class);
+            EnumMap<User.LifeStage, BitSet> stages = new EnumMap<>(User.LifeStage.class);
+            Map<Long, SortedIntSet> authors = new HashMap<>();
+            Map<Long, SortedIntSet> users = new HashMap<>();
+            Map<Long, SortedIntSet> roles = new HashMap<>();
+            Map<Long, SortedIntSet> locations = new HashMap<>();
+            BitSet all = new BitSet();
+
+            snapshotTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.query("SELECT id, access_level, author_id FROM formative_documents ORDER BY id", rs -> {
+                    int doc = toBit(rs.getLong("id"));
+                    all.set(doc);
+                    levels.computeIfAbsent(FormativeDocument.AccessLevel.valueOf(rs.getString("access_level")), k -> new BitSet()).set(doc);
+                    long authorId = rs.getLong("author_id");
+                    if (!rs.wasNull()) {
+                        authors.computeIfAbsent(authorId, k -> new SortedIntSet()).add(doc);
+                    }
+                });
+                jdbcTemplate.query("SELECT document_id, user_id FROM document_allowed_users ORDER BY document_id",
+                        rs -> { users.computeIfAbsent(rs.getLong(2), k -> new SortedIntSet()).add(toBit(rs.getLong(1))); });
+                jdbcTemplate.query("SELECT document_id, role_id FROM document_allowed_roles ORDER BY document_id",
+                        rs -> { roles.computeIfAbsent(rs.getLong(2), k -> new SortedIntSet()).add(toBit(rs.getLong(1))); });
+                jdbcTemplate.query("SELECT document_id, location_id FROM document_allowed_locations ORDER BY document_id",
+                        rs -> { locations.computeIfAbsent(rs.getLong(2), k -> new SortedIntSet()).add(toBit(rs.getLong(1))); });
+                jdbcTemplate.query("SELECT document_id, life_stage FROM document_allowed_stages",
+                        rs -> { stages.computeIfAbsent(User.LifeStage.valueOf(rs.getString(2)), k -> new BitSet()).set(toBit(rs.getLong(1))); });
+            });
+
+            lock.writeLock().lock();
+            try {
+                replace(byAccessLevel, levels);
+                replace(byStage, stages);
+                replace(byAuthor, authors);
+                replace(byUser, users);
+                replace(byRole, roles);
+                replace(byLocation, locations);
+                indexed.clear();
+                indexed.or(all);
+                deferred.forEach(Runnable::run);
+                deferred = null;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            long elapsed = System.nanoTime() - start;
+            rebuildTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            log.info("Índice de acesso a documentos reconstruído: {} documentos em {} ms",
+                    all.cardinality(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+        } catch (RuntimeException e) {
+            abortBulk();
+            log.error("Falha ao reconstruir o índice de acesso a documentos; usando verificação pela entidade", e);
+        }
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    // Verifica o acesso pelo índice; se o documento ainda não estiver indexado, usa a regra da entidade
+    public boolean canAccess(User user, FormativeDocument document) {
+        if (document.getId() != null) {
+            Boolean answer = lookup(DocumentAccessProfile.of(user), document.getId());
+            if (answer != null) {
+                return answer;
+            }
+        }
+
+        fallbacks.increment();
+        return user.canAccessDocument(document);
+    }
+
+    // Verificação pelo id, sem carregar o documento; null se o índice não puder responder
+    public Boolean canAccess(DocumentAccessProfile profile, Long documentId) {
+        return lookup(profile, documentId);
+    }
+
+    private Boolean lookup(DocumentAccessProfile profile, Long documentId) {
+        if (!isReady()) {
+            return null;
+        }
+
+        int doc = toBit(documentId);
+        lock.readLock().lock();
+        try {
+            if (!indexed.get(doc)) {
+                return null;
+            }
+            hits.increment();
+            return isSet(byAuthor.get(profile.getUserId()), doc)
+                    || isSet(byAccessLevel.get(FormativeDocument.AccessLevel.PUBLIC), doc)
+                    || (isSet(byAccessLevel.get(FormativeDocument.AccessLevel.RESTRICTED), doc)
+                        && (isSet(byUser.get(profile.getUserId()), doc) || isSet(byRole.get(profile.getRoleId()), doc)))
+                    || (isSet(byAccessLevel.get(FormativeDocument.AccessLevel.STAGE_BASED), doc)
+                        && profile.getLifeStage() != null && isSet(byStage.get(profile.getLifeStage()), doc))
+                    || (isSet(byAccessLevel.get(FormativeDocument.AccessLevel.LOCATION_BASED), doc)
+                        && isSet(byLocation.get(profile.getLocationId()), doc));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Ids de todos os documentos visíveis para o perfil (null se o índice não estiver pronto)
+    public BitSet visibleDocumentIds(DocumentAccessProfile profile) {
+        if (!isReady()) {
+            return null;
+        }
+
+        lock.readLock().lock();
+        try {
+            BitSet visible = toBits(byAuthor.get(profile.getUserId()));
+            or(visible, byAccessLevel.get(FormativeDocument.AccessLevel.PUBLIC));
+
+            BitSet restricted = toBits(byUser.get(profile.getUserId()));
+            or(restricted, byRole.get(profile.getRoleId()));
+            and(restricted, byAccessLevel.get(FormativeDocument.AccessLevel.RESTRICTED));
+            visible.or(restricted);
+
+            if (profile.getLifeStage() != null) {
+                BitSet stage = copy(byStage.get(profile.getLifeStage()));
+                and(stage, byAccessLevel.get(FormativeDocument.AccessLevel.STAGE_BASED));
+                visible.or(stage);
+            }
+
+            BitSet location = toBits(byLocation.get(profile.getLocationId()));
+            and(location, byAccessLevel.get(FormativeDocument.AccessLevel.LOCATION_BASED));
+            visible.or(location);
+
+            hits.increment();
+            return visible;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Documentos direcionados a uma etapa de vida ou localização, qualquer que seja o nível de acesso
+    // (usados para priorizar recomendações; null se o índice não estiver pronto)
+    public BitSet documentsForStage(User.LifeStage stage) {
+        return targeted(() -> copy(byStage.get(stage)));
+    }
+
+    public BitSet documentsForLocation(Long locationId) {
+        return targeted(() -> toBits(byLocation.get(locationId)));
+    }
+
+    private BitSet targeted(Supplier<BitSet> bits) {
+        if (!isReady()) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            return bits.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // (Re)indexa um documento completo, após o commit da transação atual
+    public void index(FormativeDocument document) {
+        if (!enabled || document.getId() == null) {
+            return;
+        }
+
+        int doc = toBit(document.getId());
+        FormativeDocument.AccessLevel accessLevel = document.getAccessLevel();
+        Long authorId = document.getAuthor() != null ? document.getAuthor().getId() : null;
+        long[] userIds = document.getAllowedUsers() == null ? new long[0]
+                : document.getAllowedUsers().stream().mapToLong(User::getId).toArray();
+        long[] roleIds = document.getAllowedRoles() == null ? new long[0]
+                : document.getAllowedRoles().stream().mapToLong(Role::getId).toArray();
+        long[] locationIds = document.getAllowedLocations() == null ? new long[0]
+                : document.getAllowedLocations().stream().mapToLong(MissionLocation::getId).toArray();
+        User.LifeStage[] stages = document.getAllowedStages() == null ? new User.LifeStage[0]
+                : document.getAllowedStages().toArray(new User.LifeStage[0]);
+
+        afterCommit(() -> write(() -> {
+            clear(doc);
+            indexed.set(doc);
+            byAccessLevel.computeIfAbsent(accessLevel, k -> new BitSet()).set(doc);
+            if (authorId != null) {
+                byAuthor.computeIfAbsent(authorId, k -> new SortedIntSet()).add(doc);
+            }
+            for (long userId : userIds) {
+                byUser.computeIfAbsent(userId, k -> new SortedIntSet()).add(doc);
+            }
+            for (long roleId : roleIds) {
+                byRole.computeIfAbsent(roleId, k -> new SortedIntSet()).add(doc);
+            }
+            for (long locationId : locationIds) {
+                byLocation.computeIfAbsent(locationId, k -> new SortedIntSet()).add(doc);
+            }
+            for (User.LifeStage stage : stages) {
+                byStage.computeIfAbsent(stage, k -> new BitSet()).set(doc);
+            }
+        }));
+    }
+
+    public void grantUser(Long documentId, Long userId) {
+        afterCommit(() -> write(() -> byUser.computeIfAbsent(userId, k -> new SortedIntSet()).add(toBit(documentId))));
+    }
+
+    public void grantRole(Long documentId, Long roleId) {
+        afterCommit(() -> write(() -> byRole.computeIfAbsent(roleId, k -> new SortedIntSet()).add(toBit(documentId))));
+    }
+
+    public void grantStage(Long documentId, User.LifeStage stage) {
+        afterCommit(() -> write(() -> byStage.computeIfAbsent(stage, k -> new BitSet()).set(toBit(documentId))));
+    }
+
+    public void grantLocation(Long documentId, Long locationId) {
+        afterCommit(() -> write(() -> byLocation.computeIfAbsent(locationId, k -> new SortedIntSet()).add(toBit(documentId))));
+    }
+
+    public void remove(Long documentId) {
+        afterCommit(() -> write(() -> clear(toBit(documentId))));
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return indexed.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public double hitRatio() {
+        double total = hits.count() + fallbacks.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    private void write(Runnable mutation) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            mutation.run();
+            if (deferred != null) {
+                deferred.add(mutation);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void beginBulk() {
+        lock.writeLock().lock();
+        try {
+            deferred = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void abortBulk() {
+        lock.writeLock().lock();
+        try {
+            deferred = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Deve ser chamado com o write lock adquirido
+    private void clear(int doc) {
+        indexed.clear(doc);
+        byAccessLevel.values().forEach(bits -> bits.clear(doc));
+        byStage.values().forEach(bits -> bits.clear(doc));
+        clear(byAuthor, doc);
+        clear(byUser, doc);
+        clear(byRole, doc);
+        clear(byLocation, doc);
+    }
+
+    // Chaves sem documentos são removidas
+    private static void clear(Map<Long, SortedIntSet> sets, int doc) {
+        sets.values().removeIf(set -> {
+            set.remove(doc);
+            return set.isEmpty();
+        });
+    }
+
+    // Só altera o índice depois que os dados estiverem confirmados no banco
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static <K, V> void replace(Map<K, V> target, Map<K, V> source) {
+        target.clear();
+        target.putAll(source);
+    }
+
+    private static int toBit(long documentId) {
+        return Math.toIntExact(documentId);
+    }
+
+    private static boolean isSet(BitSet bits, int doc) {
+        return bits != null && bits.get(doc);
+    }
+
+    private static boolean isSet(SortedIntSet set, int doc) {
+        return set != null && set.contains(doc);
+    }
+
+    private static BitSet toBits(SortedIntSet set) {
+        BitSet bits = new BitSet();
+        if (set != null) {
+            set.orInto(bits);
+        }
+        return bits;
+    }
+
+    private static BitSet copy(BitSet bits) {
+        return bits == null ? new BitSet() : (BitSet) bits.clone();
+    }
+
+    private static void or(BitSet target, BitSet bits) {
+        if (bits != null) {
+            target.or(bits);
+        }
+    }
+
+    private static void or(BitSet target, SortedIntSet set) {
+        if (set != null) {
+            set.orInto(target);
+        }
+    }
+
+    private static void and(BitSet target, BitSet bits) {
+        if (bits == null) {
+            target.clear();
+        } else {
+            target.and(bits);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.gestaoformativa.service;
+
+import com.gestaoformativa.model.DocumentAttachment;
+import com.gestaoformativa.model.FormativeDocument;
+import com.gestaoformativa.repository.DocumentAttachmentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+// Upload e leitura dos anexos. Os bytes ficam no BlobStore, endereçados pelo SHA-256;
+// o banco guarda apenas os metadados e a contagem de referências de cada blob (attachment_blobs),
+// mantida por trigger em document_attachments.
+@Slf4j
+@Service
+public class DocumentAttachmentService {
+
+    private static final int LEGACY_READ_CHUNK_SIZE = 512 * 1024;
+
+    private final DocumentAttachmentRepository attachmentRepository;
+    private final BlobStore blobStore;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration gcGracePeriod;
+
+    public DocumentAttachmentService(DocumentAttachmentRepository attachmentRepository,
+                                     BlobStore blobStore,
+                                     JdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${app.attachments.gc-grace-minutes:60}") long gcGraceMinutes) {
+        this.attachmentRepository = attachmentRepository;
+        this.blobStore = blobStore;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.gcGracePeriod = Duration.ofMinutes(gcGraceMinutes);
+    }
+
+    public Optional<DocumentAttachment> getAttachment(Long documentId) {
+        return attachmentRepository.findByDocumentId(documentId);
+    }
+
+    // Substitui o anexo do documento. O upload é gravado em disco antes de abrir a transação,
+    // para não segurar uma conexão do banco durante a transferência.
+    public DocumentAttachment storeAttachment(FormativeDocument document, String fileName, String contentType,
+                                              InputStream input) throws IOException {
+        BlobStore.StagedBlob staged = blobStore.stage(input);
+        try {
+            return transactionTemplate.execute(status -> {
+                attachmentRepository.findByDocumentId(document.getId()).ifPresent(existing -> {
+                    attachmentRepository.delete(existing);
+                    attachmentRepository.flush();
+                });
+
+                DocumentAttachment attachment = new DocumentAttachment();
+                attachment.setDocument(document);
+                attachment.setFileName(fileName);
+                attachment.setContentType(contentType);
+                attachment.setSizeBytes(staged.getSize());
+                attachment.setSha256(staged.getHash());
+                // O flush dispara o trigger que incrementa a referência e bloqueia a linha do blob,
+                // então a coleta de órfãos não pode removê-lo entre a verificação e a publicação
+                attachment = attachmentRepository.saveAndFlush(attachment);
+
+                try {
+                    blobStore.commit(staged);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return attachment;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            blobStore.discard(staged);
+        }
+    }
+
+    // Abre o conteúdo a partir de offset. Anexos ainda não copiados para o BlobStore
+    // são lidos da tabela antiga em blocos.
+    public InputStream openContent(DocumentAttachment attachment, long offset, long length) throws IOException {
+        if (blobStore.exists(attachment.getSha256())) {
+            return blobStore.open(attachment.getSha256(), offset, length);
+        }
+        return new LegacyContentInputStream(attachment.getId(), offset, length);
+    }
+
+    public Optional<Path> localPath(DocumentAttachment attachment) {
+        return blobStore.localPath(attachment.getSha256());
+    }
+
+    // Copia para o BlobStore os anexos que ainda estão em document_attachment_contents
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateLegacyContents() {
+        List<Long> pending;
+        try {
+            pending = jdbcTemplate.queryForList("SELECT attachment_id FROM document_attachment_contents", Long.class);
+        } catch (DataAccessException e) {
+            log.error("Não foi possível listar os anexos pendentes de migração para o armazenamento de blobs", e);
+            return;
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        log.info("Movendo {} anexos do banco para o armazenamento de blobs", pending.size());
+
+        for (Long attachmentId : pending) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(
+                        "SELECT c.data, a.sha256 FROM document_attachment_contents c " +
+                                "JOIN document_attachments a ON a.id = c.attachment_id WHERE c.attachment_id = ?",
+                        rs -> {
+                            try (InputStream data = rs.getBinaryStream(1)) {
+                                BlobStore.StagedBlob staged = blobStore.stage(data);
+                                if (!staged.getHash().equals(rs.getString(2))) {
+                                    blobStore.discard(staged);
+                                    log.warn("Conteúdo do anexo {} não corresponde ao hash; mantido no banco", attachmentId);
+                                    return;
+                                }
+                                blobStore.commit(staged);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                            jdbcTemplate.update("DELETE FROM document_attachment_contents WHERE attachment_id = ?", attachmentId);
+                        },
+                        attachmentId));
+            } catch (RuntimeException e) {
+                log.error("Falha ao mover o anexo {} para o armazenamento de blobs", attachmentId, e);
+            }
+        }
+    }
+
+    // Remove blobs sem referência há mais que o período de carência, e arquivos
+    // que nunca chegaram a ser registrados (upload cuja transação falhou)
+    @Scheduled(fixedDelayString = "${app.attachments.gc-interval-ms:3600000}",
+            initialDelayString = "${app.attachments.gc-interval-ms:3600000}")
+    public void collectGarbage() {
+        Timestamp cutoff = Timestamp.from(Instant.now().minus(gcGracePeriod));
+
+        List<String> candidates = jdbcTemplate.queryForList(
+                "SELECT hash FROM attachment_blobs WHERE ref_count = 0 AND unreferenced_since < ?",
+                String.class, cutoff);
+        int removed = 0;
+        for (String hash : candidates) {
+            Boolean deleted = transactionTemplate.execute(status -> {
+                // Revalida sob bloqueio: um upload concorrente pode ter voltado a referenciar o blob
+                int rows = jdbcTemplate.update(
+                        "DELETE FROM attachment_blobs WHERE hash = ? AND ref_count = 0 AND unreferenced_since < ?",
+                        hash, cutoff);
+                if (rows == 0) {
+                    return false;
+                }
+                try {
+                    blobStore.delete(hash);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return true;
+            });
+            if (Boolean.TRUE.equals(deleted)) {
+                removed++;
+            }
+        }
+
+        try {
+            Set<String> known = new HashSet<>(jdbcTemplate.queryForList("SELECT hash FROM attachment_blobs", String.class));
+            Instant fileCutoff = cutoff.toInstant();
+            Set<String> orphans = new HashSet<>();
+            blobStore.forEachStored((hash, modified) -> {
+                if (!known.contains(hash) && modified.isBefore(fileCutoff)) {
+                    orphans.add(hash);
+                }
+            });
+            for (String hash : orphans) {
+                blobStore.delete(hash);
+            }
+            removed += orphans.size();
+            blobStore.purgeStaging(fileCutoff);
+        } catch (IOException e) {
+            log.error("Falha na varredura do armazenamento de blobs", e);
+        }
+
+        if (removed > 0) {
+            log.info("{} blobs de anexos sem referência removidos", removed);
+        }
+    }
+
+    private class LegacyContentInputStream extends InputStream {
+
+        private final Long attachmentId;
+        private long position;
+        private long remaining;
+        private byte[] chunk = new byte[0];
+        private int chunkPosition = 0;
+
+        LegacyContentInputStream(Long attachmentId, long offset, long length) {
+            this.attachmentId = attachmentId;
+            this.position = offset;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int off, int len) throws IOException {
+            if (chunkPosition >= chunk.length && !fetchNextChunk()) {
+                return -1;
+            }
+            int count = Math.min(len, chunk.length - chunkPosition);
+            System.arraycopy(chunk, chunkPosition, buffer, off, count);
+            chunkPosition += count;
+            return count;
+        }
+
+        private boolean fetchNextChunk() {
+            if (remaining <= 0) {
+                return false;
+            }
+            int size = (int) Math.min(LEGACY_READ_CHUNK_SIZE, remaining);
+            // substring em bytea usa índice iniciando em 1
+            List<byte[]> rows = jdbcTemplate.queryForList(
+                    "SELECT substring(data FROM ? FOR ?) FROM document_attachment_contents WHERE attachment_id = ?",
+                    byte[].class, Math.toIntExact(position + 1), size, attachmentId);
+            if (rows.isEmpty() || rows.get(0) == null || rows.get(0).length == 0) {
+                remaining = 0;
+                return false;
+            }
+            chunk = rows.get(0);
+            chunkPosition = 0;
+            position += chunk.length;
+            remaining -= chunk.length;
+            return true;
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package com.gestaoformativa.service;
 
+import com.gestaoformativa.dto.ReadingStatsDTO;
+import com.gestaoformativa.dto.UniqueReadersDTO;
+import com.gestaoformativa.model.DocumentAccessProfile;
 import com.gestaoformativa.model.DocumentReadingProgress;
+import com.gestaoformativa.model.DocumentReadingStats;
 import com.gestaoformativa.model.FormativeDocument;
 import com.gestaoformativa.model.User;
 import com.gestaoformativa.repository.DocumentReadingProgressRepository;
@@ -11,8 +15,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityNotFoundException;
-import java.time.LocalDateTime;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -27,6 +32,24 @@ public class DocumentReadingProgressService {
     @Autowired
     private FormativeDocumentRepository documentRepository;
 
+    @Autowired
+    private DocumentAccessIndex accessIndex;
+
+    @Autowired
+    private ReadingProgressBuffer progressBuffer;
+
+    @Autowired
+    private DocumentReadingStatsService statsService;
+
+    @Autowired
+    private TrendingDocumentTracker trendingTracker;
+
+    @Autowired
+    private ReaderSketchService readerSketches;
+
+    @Autowired
+    private RecommendationService recommendationService;
+
     public DocumentReadingProgress getReadingProgress(Long userId, Long documentId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new EntityNotFoundException("User not found with id: " + userId));
@@ -36,46 +59,108 @@ public class DocumentReadingProgressService {
 
         Optional<DocumentReadingProgress> progress = progressRepository.findByUserAndDocument(user, document);
 
+        // Com o buffer ativo, o progresso ainda não gravado prevalece
+        Optional<ReadingProgressBuffer.PendingProgress> pending = progressBuffer.get(userId, documentId);
+        if (pending.isPresent()) {
+            return applyPending(progress.orElseGet(() -> newProgress(user, document)), pending.get());
+        }
+
         return progress.orElse(null);
     }
 
+    private static final int MAX_SYNC_SIZE = 1000;
+
+    // Recebe o usuário já autenticado; o acesso é verificado pelo índice sem carregar o documento
     @Transactional
-    public DocumentReadingProgress updateReadingProgress(Long userId, Long documentId, Integer progressPercentage, String userNotes) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new EntityNotFoundException("User not found with id: " + userId));
+    public DocumentReadingProgress updateReadingProgress(User user, Long documentId, Integer progressPercentage, String userNotes) {
+        checkAccess(user, documentId);
+        int percentage = progressPercentage != null ? progressPercentage : 0;
 
-        FormativeDocument document = documentRepository.findById(documentId)
-                .orElseThrow(() -> new EntityNotFoundException("Document not found with id: " + documentId));
+        DocumentReadingProgress progress;
+        if (progressBuffer.isEnabled()) {
+            ReadingProgressBuffer.PendingProgress pending =
+                    progressBuffer.record(user.getId(), documentId, percentage, userNotes);
+            progress = applyPending(newProgress(user, documentRepository.getReferenceById(documentId)), pending);
+        } else {
+            // Um único comando: insere ou combina com a linha existente e devolve o resultado
+            progress = progressRepository.upsertProgress(user.getId(), documentId, percentage, userNotes);
+        }
 
-        if (!user.canAccessDocument(document)) {
-            throw new SecurityException("User does not have access to this document");
+        recordRead(user, documentId, percentage >= 100);
+        return progress;
+    }
+
+    // Sincronização do progresso registrado offline pelo leitor: todos os pares em um único comando
+    @Transactional
+    public List<DocumentReadingProgress> syncReadingProgress(User user, Map<Long, Integer> progressByDocument) {
+        if (progressByDocument.size() > MAX_SYNC_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_SYNC_SIZE + " documents can be synchronized at once");
         }
+        progressByDocument.keySet().forEach(documentId -> checkAccess(user, documentId));
 
-        Optional<DocumentReadingProgress> existingProgress = progressRepository.findByUserAndDocument(user, document);
-        DocumentReadingProgress progress;
+        List<DocumentReadingProgress> progress = progressRepository.upsertProgressBatch(user.getId(), progressByDocument);
 
-        if (existingProgress.isPresent()) {
-            progress = existingProgress.get();
-        } else {
-            progress = new DocumentReadingProgress();
-            progress.setUser(user);
-            progress.setDocument(document);
-            progress.setFirstViewDate(LocalDateTime.now());
+        progressByDocument.forEach((documentId, percentage) ->
+                recordRead(user, documentId, percentage != null && percentage >= 100));
+        return progress;
+    }
+
+    // Alimenta os documentos em alta, os sketches de leitores distintos e as recomendações
+    private void recordRead(User user, Long documentId, boolean completed) {
+        trendingTracker.recordRead(user.getTenantId(), user.getId(), documentId);
+        Long locationId = user.getMissionLocation() != null ? user.getMissionLocation().getId() : null;
+        readerSketches.recordRead(user.getId(), locationId, documentId);
+        recommendationService.documentRead(user.getId(), documentId, completed);
+    }
+
+    public UniqueReadersDTO getUniqueDocumentReaders(Long documentId, int days) {
+        if (!documentRepository.existsById(documentId)) {
+            throw new EntityNotFoundException("Document not found with id: " + documentId);
         }
+        LocalDate today = LocalDate.now();
+        return readerSketches.countDocumentReaders(documentId, today.minusDays(days - 1L), today);
+    }
 
-        progress.setProgressPercentage(progressPercentage);
-        progress.setLastViewDate(LocalDateTime.now());
+    public UniqueReadersDTO getUniqueLocationReaders(Long locationId, int days) {
+        LocalDate today = LocalDate.now();
+        return readerSketches.countLocationReaders(locationId, today.minusDays(days - 1L), today);
+    }
 
-        if (userNotes != null) {
-            progress.setUserNotes(userNotes);
+    private void checkAccess(User user, Long documentId) {
+        Boolean indexedAccess = accessIndex.canAccess(DocumentAccessProfile.of(user), documentId);
+        if (indexedAccess == null) {
+            FormativeDocument document = documentRepository.findById(documentId)
+                    .orElseThrow(() -> new EntityNotFoundException("Document not found with id: " + documentId));
+            indexedAccess = accessIndex.canAccess(user, document);
+        }
+        if (!indexedAccess) {
+            throw new SecurityException("User does not have access to this document");
         }
+    }
+
+    private static DocumentReadingProgress newProgress(User user, FormativeDocument document) {
+        DocumentReadingProgress progress = new DocumentReadingProgress();
+        progress.setUser(user);
+        progress.setDocument(document);
+        return progress;
+    }
 
-        if (progressPercentage >= 100 && !progress.getCompleted()) {
+    // Combina o estado gravado com o pendente no buffer (progresso só aumenta)
+    private static DocumentReadingProgress applyPending(DocumentReadingProgress progress, ReadingProgressBuffer.PendingProgress pending) {
+        int stored = progress.getProgressPercentage() != null ? progress.getProgressPercentage() : 0;
+        progress.setProgressPercentage(Math.max(stored, pending.getProgressPercentage()));
+        if (progress.getFirstViewDate() == null) {
+            progress.setFirstViewDate(pending.getFirstViewDate());
+        }
+        progress.setLastViewDate(pending.getLastViewDate());
+        if (pending.getUserNotes() != null) {
+            progress.setUserNotes(pending.getUserNotes());
+        }
+        if (pending.isCompleted() && !Boolean.TRUE.equals(progress.getCompleted())) {
             progress.setCompleted(true);
-            progress.setCompletedDate(LocalDateTime.now());
+            progress.setCompletedDate(pending.getCompletedDate());
         }
-
-        return progressRepository.save(progress);
+        return progress;
     }
 
     public List<DocumentReadingProgress> getCompletedDocumentsByUser(Long userId) {
@@ -92,11 +177,22 @@ public class DocumentReadingProgressService {
         return progressRepository.findByUserAndCompletedFalse(user);
     }
 
+    // Lido dos agregados mantidos pelo trigger, sem percorrer o progresso de cada leitor
     public Double getAverageProgressForDocument(Long documentId) {
-        FormativeDocument document = documentRepository.findById(documentId)
-                .orElseThrow(() -> new EntityNotFoundException("Document not found with id: " + documentId));
+        if (!documentRepository.existsById(documentId)) {
+            throw new EntityNotFoundException("Document not found with id: " + documentId);
+        }
+
+        return statsService.getStats(documentId).map(DocumentReadingStats::getAverageProgress).orElse(null);
+    }
+
+    public ReadingStatsDTO getReadingStats(User user, Long documentId) {
+        checkAccess(user, documentId);
 
-        return progressRepository.getAverageProgressForDocument(document);
+        return statsService.getStats(documentId)
+                .map(stats -> new ReadingStatsDTO(documentId, stats.getReaderCount(), stats.getCompletedCount(),
+                        stats.getAverageProgress(), stats.getCompletionRate(), stats.getLastActivity()))
+                .orElseGet(() -> new ReadingStatsDTO(documentId, 0, 0, null, null, null));
     }
 
     public List<FormativeDocument> getRecentlyViewedDocuments(Long userId) {
@@ -114,8 +210,10 @@ public class DocumentReadingProgressService {
         FormativeDocument document = documentRepository.findById(documentId)
                 .orElseThrow(() -> new EntityNotFoundException("Document not found with id: " + documentId));
 
+        progressBuffer.discard(userId, documentId);
         Optional<DocumentReadingProgress> progress = progressRepository.findByUserAndDocument(user, document);
 
         progress.ifPresent(progressRepository::delete);
+        recommendationService.progressReset(userId);
     }
 }
\ No newline at end of file
@@ -0,0 +1,108 @@
+package com.gestaoformativa.service;
+
+import com.gestaoformativa.model.DocumentReadingStats;
+import com.gestaoformativa.repository.DocumentReadingStatsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+
+// Leitura dos agregados de document_reading_stats e conciliação periódica com document_reading_progress.
+// O trigger mantém os agregados na mesma transação do progresso; a conciliação só corrige
+// divergências (ex.: dados alterados com o trigger desabilitado).
+@Slf4j
+@Service
+public class DocumentReadingStatsService {
+
+    // As consultas abaixo trabalham em uma faixa de documentos [?, ?)
+    private static final String ENSURE_ROWS_SQL =
+            "INSERT INTO document_reading_stats (document_id) " +
+            "SELECT DISTINCT document_id FROM document_reading_progress WHERE document_id >= ? AND document_id < ? " +
+            "ON CONFLICT (document_id) DO NOTHING";
+
+    private static final String LOCK_ROWS_SQL =
+            "SELECT document_id FROM document_reading_stats WHERE document_id >= ? AND document_id < ? " +
+            "ORDER BY document_id FOR UPDATE";
+
+    private static final String REBUILD_SQL =
+            "INSERT INTO document_reading_stats (document_id, reader_count, completed_count, progress_sum, last_activity) " +
+            "SELECT document_id, COUNT(*), COUNT(*) FILTER (WHERE completed), " +
+            "COALESCE(SUM(progress_percentage), 0), MAX(last_view_date) " +
+            "FROM document_reading_progress WHERE document_id >= ? AND document_id < ? GROUP BY document_id " +
+            "ON CONFLICT (document_id) DO UPDATE SET " +
+            "reader_count = EXCLUDED.reader_count, completed_count = EXCLUDED.completed_count, " +
+            "progress_sum = EXCLUDED.progress_sum, last_activity = EXCLUDED.last_activity " +
+            "WHERE (document_reading_stats.reader_count, document_reading_stats.completed_count, " +
+            "document_reading_stats.progress_sum) IS DISTINCT FROM " +
+            "(EXCLUDED.reader_count, EXCLUDED.completed_count, EXCLUDED.progress_sum)";
+
+    private static final String REMOVE_STALE_SQL =
+            "DELETE FROM document_reading_stats s WHERE s.document_id >= ? AND s.document_id < ? AND NOT EXISTS " +
+            "(SELECT 1 FROM document_reading_progress p WHERE p.document_id = s.document_id)";
+
+    private final DocumentReadingStatsRepository statsRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int rangeSize;
+
+    public DocumentReadingStatsService(DocumentReadingStatsRepository statsRepository,
+                                       JdbcTemplate jdbcTemplate,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${app.reading-stats.reconcile-range-size:1000}") int rangeSize) {
+        this.statsRepository = statsRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rangeSize = Math.max(1, rangeSize);
+    }
+
+    public Optional<DocumentReadingStats> getStats(Long documentId) {
+        return statsRepository.findById(documentId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.reading-stats.reconcile-interval-ms:86400000}",
+            initialDelayString = "${app.reading-stats.reconcile-interval-ms:86400000}")
+    public void scheduledReconcile() {
+        try {
+            reconcile();
+        } catch (DataAccessException e) {
+            log.error("Falha na conciliação das estatísticas de leitura", e);
+        }
+    }
+
+    // Reconstrói os agregados a partir do zero, uma faixa de documentos por transação. last_activity não volta
+    // atrás quando um progresso é removido, então só contagens e somas divergentes são corrigidas.
+    // Em vez de bloquear a tabela de progresso, cada faixa trava as suas linhas de document_reading_stats
+    // (criando as que faltam) antes de agregar: gravações de progresso desses documentos esperam só pelo
+    // trigger e aplicam o seu incremento depois, sobre o valor corrigido; as demais seguem normalmente.
+    public int reconcile() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM formative_documents", Long.class);
+        if (maxId == null) {
+            return 0;
+        }
+
+        int corrected = 0;
+        for (long from = 0; from <= maxId; from += rangeSize) {
+            long start = from;
+            long end = from + rangeSize;
+            Integer rangeCorrected = transactionTemplate.execute(status -> {
+                jdbcTemplate.update(ENSURE_ROWS_SQL, start, end);
+                jdbcTemplate.query(LOCK_ROWS_SQL, rs -> {
+                }, start, end);
+                int updated = jdbcTemplate.update(REBUILD_SQL, start, end);
+                int removed = jdbcTemplate.update(REMOVE_STALE_SQL, start, end);
+                return updated + removed;
+            });
+            corrected += rangeCorrected != null ? rangeCorrected : 0;
+        }
+        if (corrected > 0) {
+            log.warn("Conciliação corrigiu as estatísticas de leitura de {} documentos", corrected);
+        }
+        return corrected;
+    }
+}
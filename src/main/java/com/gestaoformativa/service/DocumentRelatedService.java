@@ -0,0 +1,285 @@
+package com.gestaoformativa.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// "Quem leu este documento também leu". Um job periódico percorre document_reading_progress
+// ordenado por usuário com um cursor (sem carregar entidades), conta em memória os pares de
+// documentos lidos pelo mesmo usuário e grava os vizinhos mais próximos de cada documento
+// (similaridade do cosseno entre os conjuntos de leitores) em document_related.
+// A memória fica limitada por max-pairs: ao atingir o limite, os pares mais raros são descartados.
+@Slf4j
+@Service
+public class DocumentRelatedService {
+
+    private static final String STREAM_SQL =
+            "SELECT user_id, document_id FROM document_reading_progress ORDER BY user_id";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO document_related (document_id, related_document_id, score, co_readers) " +
+            "SELECT ?, ?, ?, ? WHERE EXISTS (SELECT 1 FROM formative_documents WHERE id = ?) " +
+            "AND EXISTS (SELECT 1 FROM formative_documents WHERE id = ?)";
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int neighbours;
+    private final int minCoReaders;
+    private final int maxPairs;
+    private final int maxDocumentsPerUser;
+
+    private final Timer rebuildTimer;
+
+    public DocumentRelatedService(JdbcTemplate jdbcTemplate,
+                                  DataSource dataSource,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.document-related.enabled:true}") boolean enabled,
+                                  @Value("${app.document-related.neighbours:20}") int neighbours,
+                                  @Value("${app.document-related.min-co-readers:2}") int minCoReaders,
+                                  @Value("${app.document-related.max-pairs:4000000}") int maxPairs,
+                                  @Value("${app.document-related.max-documents-per-user:500}") int maxDocumentsPerUser,
+                                  @Value("${app.document-related.fetch-size:5000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.neighbours = neighbours;
+        this.minCoReaders = minCoReaders;
+        this.maxPairs = maxPairs;
+        this.maxDocumentsPerUser = maxDocumentsPerUser;
+
+        // O driver do PostgreSQL só usa cursor com fetch size dentro de uma transação
+        this.streamingTemplate = new JdbcTemplate(dataSource);
+        this.streamingTemplate.setFetchSize(fetchSize);
+
+        this.rebuildTimer = Timer.builder("document.related.rebuild")
+                .description("Tempo de recálculo dos documentos relacionados por co-leitura")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${app.document-related.cron:0 30 3 * * *}")
+    public void scheduledRebuild() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (DataAccessException e) {
+            log.error("Falha ao recalcular os documentos relacionados; a tabela anterior foi mantida", e);
+        }
+    }
+
+    // Recalcula e substitui a tabela inteira; retorna o número de relações gravadas
+    public synchronized int rebuild() {
+        long start = System.nanoTime();
+
+        CoReadingCounts counts = new CoReadingCounts();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> streamingTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(STREAM_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(streamingTemplate.getFetchSize());
+            return statement;
+        }, rs -> {
+            counts.add(rs.getLong(1), Math.toIntExact(rs.getLong(2)));
+        }));
+        counts.finish();
+
+        Map<Integer, Neighbours> nearest = counts.nearest();
+
+        // Grava direto dos vizinhos, um lote de BATCH_SIZE por vez, sem materializar todas as relações
+        int written = transactionTemplate.execute(status -> {
+            jdbcTemplate.update("DELETE FROM document_related");
+            RowBatch batch = new RowBatch();
+            nearest.forEach((documentId, list) -> list.writeTo(documentId, batch));
+            batch.flush();
+            return batch.written;
+        });
+
+        long elapsed = System.nanoTime() - start;
+        rebuildTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        log.info("Documentos relacionados recalculados: {} leituras, {} pares, {} relações em {} ms",
+                counts.rows, counts.pairs.size(), written, TimeUnit.NANOSECONDS.toMillis(elapsed));
+        return written;
+    }
+
+    // Ids relacionados ao documento, do mais para o menos similar
+    public List<Long> getRelatedDocumentIds(Long documentId, int limit) {
+        return jdbcTemplate.queryForList(
+                "SELECT related_document_id FROM document_related WHERE document_id = ? " +
+                        "ORDER BY score DESC, related_document_id DESC LIMIT ?",
+                Long.class, documentId, limit);
+    }
+
+    // Contagens acumuladas durante a leitura do cursor (as linhas chegam agrupadas por usuário)
+    private final class CoReadingCounts {
+        private final LongIntHashMap readers = new LongIntHashMap(1 << 12);
+        private final LongIntHashMap pairs = new LongIntHashMap(1 << 16);
+        private final int[] basket = new int[maxDocumentsPerUser];
+        private int basketSize = 0;
+        private long currentUser = -1;
+        private long rows = 0;
+        private int pruneThreshold = 0;
+
+        void add(long userId, int documentId) {
+            rows++;
+            if (userId != currentUser) {
+                finish();
+                currentUser = userId;
+            }
+            // Leitores com muitos documentos contribuem só com os primeiros (o custo cresce com o quadrado)
+            if (basketSize < basket.length) {
+                basket[basketSize++] = documentId;
+            }
+        }
+
+        void finish() {
+            for (int i = 0; i < basketSize; i++) {
+                readers.increment(basket[i], 1);
+                for (int j = i + 1; j < basketSize; j++) {
+                    pairs.increment(pairKey(basket[i], basket[j]), 1);
+                }
+            }
+            basketSize = 0;
+
+            if (pairs.size() > maxPairs) {
+                pruneThreshold++;
+                int removed = pairs.removeAtMost(pruneThreshold);
+                log.warn("Limite de pares de co-leitura atingido; {} pares com até {} co-leitores descartados",
+                        removed, pruneThreshold);
+            }
+        }
+
+        Map<Integer, Neighbours> nearest() {
+            Map<Integer, Neighbours> nearest = new HashMap<>();
+            pairs.forEach((key, coReaders) -> {
+                if (coReaders < minCoReaders) {
+                    return;
+                }
+                int a = (int) (key >>> 32);
+                int b = (int) key;
+                double score = coReaders / Math.sqrt((double) readers.get(a) * readers.get(b));
+                nearest.computeIfAbsent(a, k -> new Neighbours(neighbours)).offer(b, score, coReaders);
+                nearest.computeIfAbsent(b, k -> new Neighbours(neighbours)).offer(a, score, coReaders);
+            });
+            return nearest;
+        }
+
+        private long pairKey(int a, int b) {
+            return a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+        }
+    }
+
+    // Os k vizinhos de maior pontuação de um documento
+    private static final class Neighbours {
+        private final int[] ids;
+        private final double[] scores;
+        private final int[] coReaders;
+        private int size = 0;
+
+        Neighbours(int capacity) {
+            this.ids = new int[capacity];
+            this.scores = new double[capacity];
+            this.coReaders = new int[capacity];
+        }
+
+        void offer(int id, double score, int co) {
+            int slot = size;
+            if (size == ids.length) {
+                slot = 0;
+                for (int i = 1; i < size; i++) {
+                    if (scores[i] < scores[slot]) {
+                        slot = i;
+                    }
+                }
+                if (scores[slot] >= score) {
+                    return;
+                }
+            } else {
+                size++;
+            }
+            ids[slot] = id;
+            scores[slot] = score;
+            coReaders[slot] = co;
+        }
+
+        void writeTo(int documentId, RowBatch batch) {
+            for (int i = 0; i < size; i++) {
+                batch.add(documentId, ids[i], (float) scores[i], coReaders[i]);
+            }
+        }
+    }
+
+    // Lote de relações em arrays primitivos, enviado ao banco ao atingir BATCH_SIZE
+    private final class RowBatch implements BatchPreparedStatementSetter {
+        private final int[] documentIds = new int[BATCH_SIZE];
+        private final int[] relatedIds = new int[BATCH_SIZE];
+        private final float[] scores = new float[BATCH_SIZE];
+        private final int[] coReaders = new int[BATCH_SIZE];
+        private int size = 0;
+        private int written = 0;
+
+        void add(int documentId, int relatedId, float score, int co) {
+            documentIds[size] = documentId;
+            relatedIds[size] = relatedId;
+            scores[size] = score;
+            coReaders[size] = co;
+            if (++size == BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (size > 0) {
+                // Linhas de documentos removidos no meio do cálculo não são inseridas (WHERE EXISTS)
+                for (int count : jdbcTemplate.batchUpdate(INSERT_SQL, this)) {
+                    if (count > 0) {
+                        written += count;
+                    } else if (count == Statement.SUCCESS_NO_INFO) {
+                        // Driver sem contagem por comando: a linha é contada como gravada
+                        written++;
+                    }
+                }
+                size = 0;
+            }
+        }
+
+        @Override
+        public void setValues(PreparedStatement statement, int i) throws SQLException {
+            statement.setLong(1, documentIds[i]);
+            statement.setLong(2, relatedIds[i]);
+            statement.setFloat(3, scores[i]);
+            statement.setInt(4, coReaders[i]);
+            statement.setLong(5, documentIds[i]);
+            statement.setLong(6, relatedIds[i]);
+        }
+
+        @Override
+        public int getBatchSize() {
+            return size;
+        }
+    }
+}
@@ -1,73 +1,176 @@
 package com.gestaoformativa.service;
 
+import com.gestaoformativa.dto.ContentSearchResultDTO;
+import com.gestaoformativa.dto.DocumentSearchFilter;
+import com.gestaoformativa.dto.DocumentSummaryDTO;
+import com.gestaoformativa.model.DocumentAccessProfile;
 import com.gestaoformativa.model.FormativeDocument;
-import com.gestaoformativa.model.MissionLocation;
-import com.gestaoformativa.model.User;
 import com.gestaoformativa.repository.DocumentSearchRepository;
+import com.gestaoformativa.repository.FormativeDocumentRepository;
 import com.gestaoformativa.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.web.util.HtmlUtils;
 
 import javax.persistence.EntityNotFoundException;
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class DocumentSearchService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     @Autowired
     private DocumentSearchRepository searchRepository;
 
     @Autowired
     private UserRepository userRepository;
 
-    public Page<FormativeDocument> searchDocuments(
-            String title,
-            Long authorId,
-            FormativeDocument.DocumentType documentType,
-            FormativeDocument.AccessLevel accessLevel,
-            User.LifeStage stage,
-            Long locationId,
-            LocalDateTime fromDate,
-            LocalDateTime toDate,
-            String keyword,
-            Pageable pageable) {
-
-        User author = null;
-        if (authorId != null) {
-            author = userRepository.findById(authorId)
-                    .orElseThrow(() -> new EntityNotFoundException("Author not found with id: " + authorId));
+    @Autowired
+    private EmbeddedSearchIndex searchIndex;
+
+    @Autowired
+    private FormativeDocumentService documentService;
+
+    @Autowired
+    private FormativeDocumentRepository documentRepository;
+
+    @Autowired
+    private DocumentAccessIndex accessIndex;
+
+    @Autowired
+    private TrendingDocumentTracker trendingTracker;
+
+    @Autowired
+    private RecommendationService recommendationService;
+
+    // Filtros e regras de acesso do usuário são aplicados na consulta, então a página e o total já vêm corretos
+    public Page<DocumentSummaryDTO> searchDocuments(DocumentAccessProfile profile, DocumentSearchFilter filter, Pageable pageable) {
+        if (filter.getAuthorId() != null && !userRepository.existsById(filter.getAuthorId())) {
+            throw new EntityNotFoundException("Author not found with id: " + filter.getAuthorId());
+        }
+
+        return searchRepository.searchDocuments(filter, profile, bounded(pageable));
+    }
+
+    // Busca textual ordenada por relevância. Os trechos destacados só são gerados para a página retornada.
+    public Page<ContentSearchResultDTO> searchByContent(DocumentAccessProfile profile, String text, Pageable pageable) {
+        if (text == null || text.isBlank()) {
+            return Page.empty(pageable);
         }
+        Pageable bounded = PageRequest.of(pageable.getPageNumber(), Math.min(pageable.getPageSize(), MAX_PAGE_SIZE));
 
-        MissionLocation location = null;
-        if (locationId != null) {
-            // Obter o local do repositório adequado
-            // location = locationRepository.findById(locationId).orElse(null);
+        // Com app.search.engine=embedded a busca é respondida pelo índice em memória
+        if (searchIndex.isReady()) {
+            Page<ContentSearchResultDTO> results =
+                    searchIndex.search(profile, text, bounded);
+            if (results != null) {
+                return results;
+            }
         }
 
-        return searchRepository.searchDocuments(
-                title, author, documentType, accessLevel, stage,
-                location, fromDate, toDate, keyword, pageable);
+        Page<DocumentSearchRepository.ContentMatch> matches =
+                searchRepository.searchByContent(text, profile, bounded);
+        if (matches.isEmpty()) {
+            return matches.map(match -> toContentResult(match, null));
+        }
+
+        List<Long> ids = matches.getContent().stream().map(DocumentSearchRepository.ContentMatch::getId).toList();
+        Map<Long, String> snippets = new HashMap<>();
+        for (DocumentSearchRepository.ContentHeadline headline : searchRepository.findContentHeadlines(text, ids)) {
+            snippets.put(headline.getId(), escapeHeadline(headline.getHeadline()));
+        }
+
+        return matches.map(match -> toContentResult(match, snippets.get(match.getId())));
+    }
+
+    private ContentSearchResultDTO toContentResult(DocumentSearchRepository.ContentMatch match, String snippet) {
+        return new ContentSearchResultDTO(
+                match.getId(),
+                match.getTitle(),
+                FormativeDocument.DocumentType.valueOf(match.getDocumentType()),
+                FormativeDocument.AccessLevel.valueOf(match.getAccessLevel()),
+                match.getAuthorId(),
+                match.getAuthorName(),
+                match.getCreationDate(),
+                match.getLastModifiedDate(),
+                match.getKeywords(),
+                match.getRank(),
+                snippet);
+    }
+
+    // O conteúdo é texto livre: escapa o HTML e mantém apenas as marcações de destaque
+    private static String escapeHeadline(String headline) {
+        if (headline == null) {
+            return null;
+        }
+        return HtmlUtils.htmlEscape(headline, "UTF-8")
+                .replace("&lt;mark&gt;", "<mark>")
+                .replace("&lt;/mark&gt;", "</mark>");
     }
 
-    public List<FormativeDocument> searchByContent(String text) {
-        return searchRepository.searchByContent(text);
+    public List<DocumentSummaryDTO> getRecentlyUpdatedDocuments(DocumentAccessProfile profile) {
+        return searchRepository.findRecentlyUpdatedSummaries(profile, PageRequest.of(0, 10));
     }
 
-    public List<FormativeDocument> getRecentlyUpdatedDocuments() {
-        return searchRepository.findTop10ByOrderByLastModifiedDateDesc();
+    // A agregação seleciona só os ids; os resumos são lidos em seguida, mantendo a ordem
+    public List<DocumentSummaryDTO> getMostViewedDocuments(DocumentAccessProfile profile, Pageable pageable) {
+        return documentService.getSummariesInOrder(
+                searchRepository.findMostViewedDocumentIds(profile, bounded(pageable)));
     }
 
-    public List<FormativeDocument> getMostViewedDocuments(Pageable pageable) {
-        return searchRepository.findMostViewedDocuments(pageable);
+    // Servido pela lista pré-calculada do usuário; a consulta é usada quando a lista não pode responder
+    // e, depois do fim de uma lista incompleta, continua a partir dela (sem repetir nem pular documentos)
+    public List<DocumentSummaryDTO> getRecommendedDocumentsForUser(DocumentAccessProfile profile, Pageable pageable) {
+        Pageable bounded = bounded(pageable);
+        RecommendationService.RecommendationPage page =
+                recommendationService.recommend(profile, (int) bounded.getOffset(), bounded.getPageSize());
+        if (page == null) {
+            return documentService.getSummariesInOrder(searchRepository.findRecommendedDocumentIdsForUser(profile, bounded));
+        }
+
+        List<Long> ids = page.getIds();
+        if (page.getContinueAfter() != null && ids.size() < bounded.getPageSize()) {
+            ids = new ArrayList<>(ids);
+            ids.addAll(searchRepository.findRecommendedDocumentIdsForUser(profile, page.getContinueAfter(),
+                    page.getContinueOffset(), bounded.getPageSize() - ids.size()));
+        }
+        return documentService.getSummariesInOrder(ids);
     }
 
-    public List<FormativeDocument> getRecommendedDocumentsForUser(Long userId, Pageable pageable) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new EntityNotFoundException("User not found with id: " + userId));
+    // Servido pelo tracker em memória; o acesso é filtrado pelo índice (ou por uma consulta
+    // sobre os candidatos, enquanto o índice não estiver pronto)
+    public List<DocumentSummaryDTO> getTrendingDocuments(DocumentAccessProfile profile, TrendingDocumentTracker.Window window, int limit) {
+        Long tenantId = profile.getTenantId();
+        if (!trendingTracker.isReady() || tenantId == null) {
+            return List.of();
+        }
+        int bounded = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        BitSet visible = accessIndex.visibleDocumentIds(profile);
+        List<Long> ids;
+        if (visible != null) {
+            ids = trendingTracker.top(tenantId, window, bounded,
+                    id -> id <= Integer.MAX_VALUE && visible.get((int) id));
+        } else {
+            List<Long> candidates = trendingTracker.top(tenantId, window, Integer.MAX_VALUE, id -> true);
+            Set<Long> accessible = candidates.isEmpty() ? Set.of()
+                    : new HashSet<>(documentRepository.findAccessibleIdsIn(profile, candidates));
+            ids = candidates.stream().filter(accessible::contains).limit(bounded).toList();
+        }
+        return documentService.getSummariesInOrder(ids);
+    }
 
-        return searchRepository.findRecommendedDocumentsForUser(user, pageable);
+    private static Pageable bounded(Pageable pageable) {
+        return PageRequest.of(pageable.getPageNumber(), Math.min(pageable.getPageSize(), MAX_PAGE_SIZE), pageable.getSort());
     }
 }
\ No newline at end of file
@@ -0,0 +1,693 @@
+package com.gestaoformativa.service;
+
+import com.gestaoformativa.dto.ContentSearchResultDTO;
+import com.gestaoformativa.model.DocumentAccessProfile;
+import com.gestaoformativa.model.FormativeDocument;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.util.HtmlUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Índice invertido em memória para a busca por conteúdo (app.search.engine=embedded).
+// Os documentos são particionados pelo tenant do autor; os candidatos são filtrados pelos
+// documentos visíveis do DocumentAccessIndex, sem consultar o banco durante a busca.
+// O índice é gravado periodicamente em disco e, ao reiniciar, só os documentos alterados
+// desde o snapshot são relidos.
+@Slf4j
+@Service
+public class EmbeddedSearchIndex {
+
+    private static final int SNAPSHOT_MAGIC = 0x47465349;
+    private static final int SNAPSHOT_FORMAT = 1;
+
+    // Pesos por campo, na mesma ordem do search_vector do banco (título > palavras-chave > conteúdo)
+    private static final float TITLE_WEIGHT = 3f;
+    private static final float KEYWORDS_WEIGHT = 2f;
+    private static final float CONTENT_WEIGHT = 1f;
+
+    // Parâmetros do BM25
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final int SNIPPET_RADIUS = 80;
+    private static final long NO_TENANT = 0L;
+    // Margem para alterações gravadas com relógio ligeiramente atrasado em relação ao snapshot
+    private static final long CATCH_UP_MARGIN_MINUTES = 5;
+
+    private static final String DOCUMENT_QUERY =
+            "SELECT d.id, u.tenant_id, d.title, d.keywords, d.content, d.document_type, d.access_level, " +
+            "d.author_id, u.name AS author_name, d.creation_date, d.last_modified_date " +
+            "FROM formative_documents d LEFT JOIN users u ON u.id = d.author_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DocumentAccessIndex accessIndex;
+    private final boolean enabled;
+    private final Path snapshotFile;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private IndexState state = new IndexState();
+    // Alterações recebidas durante uma reconstrução, reaplicadas sobre o resultado dela
+    private List<Consumer<IndexState>> deferred;
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+    private volatile boolean ready = false;
+
+    public EmbeddedSearchIndex(JdbcTemplate jdbcTemplate,
+                               DocumentAccessIndex accessIndex,
+                               @Value("${app.search.engine:database}") String engine,
+                               @Value("${app.search.index-dir:data/search-index}") String indexDir) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.accessIndex = accessIndex;
+        this.enabled = "embedded".equalsIgnoreCase(engine);
+        this.snapshotFile = Paths.get(indexDir).toAbsolutePath().normalize().resolve("documents.idx");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime snapshotTime = loadSnapshot();
+        if (snapshotTime != null) {
+            catchUp(snapshotTime);
+        } else {
+            rebuild();
+        }
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    // Reconstrução completa a partir do banco
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        beginBulk();
+        try {
+            IndexState rebuilt = new IndexState();
+            jdbcTemplate.query(DOCUMENT_QUERY, rs -> {
+                rebuilt.put(readDocument(rs));
+            });
+            finishBulk(current -> rebuilt);
+            dirty.set(true);
+            log.info("Índice de busca reconstruído: {} documentos em {} ms",
+                    rebuilt.documents.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (RuntimeException e) {
+            abortBulk();
+            log.error("Falha ao reconstruir o índice de busca; a busca usará o banco", e);
+        }
+    }
+
+    // Relê apenas os documentos alterados desde o snapshot e remove os que foram excluídos
+    private void catchUp(LocalDateTime snapshotTime) {
+        long start = System.nanoTime();
+        beginBulk();
+        try {
+            Timestamp since = Timestamp.valueOf(snapshotTime.minusMinutes(CATCH_UP_MARGIN_MINUTES));
+            List<IndexedDocument> changed = new ArrayList<>();
+            jdbcTemplate.query(DOCUMENT_QUERY + " WHERE COALESCE(d.last_modified_date, d.creation_date) >= ?",
+                    rs -> {
+                        changed.add(readDocument(rs));
+                    }, since);
+            BitSet existing = new BitSet();
+            jdbcTemplate.query("SELECT id FROM formative_documents", rs -> {
+                existing.set(Math.toIntExact(rs.getLong(1)));
+            });
+
+            finishBulk(target -> {
+                changed.forEach(target::put);
+                for (Integer id : new ArrayList<>(target.documents.keySet())) {
+                    if (!existing.get(id)) {
+                        target.remove(id);
+                    }
+                }
+                return target;
+            });
+            dirty.set(true);
+            log.info("Índice de busca carregado do snapshot: {} documentos atualizados em {} ms",
+                    changed.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (RuntimeException e) {
+            abortBulk();
+            log.error("Falha ao atualizar o índice de busca a partir do snapshot; reconstruindo", e);
+            rebuild();
+        }
+    }
+
+    // (Re)indexa o documento após o commit, lendo a versão confirmada no banco
+    public void index(Long documentId) {
+        if (!enabled || documentId == null) {
+            return;
+        }
+        afterCommit(() -> {
+            List<IndexedDocument> rows = new ArrayList<>();
+            jdbcTemplate.query(DOCUMENT_QUERY + " WHERE d.id = ?", rs -> {
+                rows.add(readDocument(rs));
+            }, documentId);
+            int doc = Math.toIntExact(documentId);
+            apply(target -> {
+                if (rows.isEmpty()) {
+                    target.remove(doc);
+                } else {
+                    target.put(rows.get(0));
+                }
+            });
+        });
+    }
+
+    public void remove(Long documentId) {
+        if (!enabled || documentId == null) {
+            return;
+        }
+        int doc = Math.toIntExact(documentId);
+        afterCommit(() -> apply(target -> target.remove(doc)));
+    }
+
+    // Busca com todos os termos (E), ordenada por BM25. Retorna null se o índice de busca ou o de
+    // acesso ainda não estiverem prontos, para que o chamador use a busca do banco.
+    // A partição é a do tenant do próprio usuário (sem tenant: a dos autores sem tenant); partições
+    // não são combinadas, pois cada uma tem o seu IDF e tamanho médio e os scores não se comparam.
+    public Page<ContentSearchResultDTO> search(DocumentAccessProfile profile, String text, Pageable pageable) {
+        if (!isReady()) {
+            return null;
+        }
+        BitSet visible = accessIndex.visibleDocumentIds(profile);
+        if (visible == null) {
+            return null;
+        }
+
+        Set<String> queryTerms = new LinkedHashSet<>(PortugueseAnalyzer.terms(text));
+        if (queryTerms.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        List<Hit> hits = new ArrayList<>();
+        List<IndexedDocument> pageDocuments = new ArrayList<>();
+        int from;
+        lock.readLock().lock();
+        try {
+            Partition partition = state.partitions.get(
+                    profile.getTenantId() != null ? profile.getTenantId() : NO_TENANT);
+            if (partition != null) {
+                partition.collect(queryTerms, visible, hits);
+            }
+
+            hits.sort(Comparator.comparingDouble(Hit::getScore).reversed().thenComparing(Hit::getDoc, Comparator.reverseOrder()));
+            from = (int) Math.min(pageable.getOffset(), hits.size());
+            int to = Math.min(from + pageable.getPageSize(), hits.size());
+            for (Hit hit : hits.subList(from, to)) {
+                pageDocuments.add(state.documents.get(hit.getDoc()));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<ContentSearchResultDTO> content = new ArrayList<>();
+        for (int i = 0; i < pageDocuments.size(); i++) {
+            IndexedDocument document = pageDocuments.get(i);
+            content.add(new ContentSearchResultDTO(
+                    (long) document.getId(),
+                    document.getTitle(),
+                    document.getDocumentType(),
+                    document.getAccessLevel(),
+                    document.getAuthorId(),
+                    document.getAuthorName(),
+                    document.getCreationDate(),
+                    document.getLastModifiedDate(),
+                    document.getKeywords(),
+                    hits.get(from + i).getScore(),
+                    snippet(document.getContent(), queryTerms)));
+        }
+        return new PageImpl<>(content, pageable, hits.size());
+    }
+
+    @Scheduled(fixedDelayString = "${app.search.snapshot-interval-ms:300000}",
+            initialDelayString = "${app.search.snapshot-interval-ms:300000}")
+    public void scheduledSnapshot() {
+        saveSnapshot();
+    }
+
+    @PreDestroy
+    public void saveSnapshot() {
+        if (!isReady() || !dirty.getAndSet(false)) {
+            return;
+        }
+
+        List<IndexedDocument> documents;
+        LocalDateTime indexedUpTo;
+        lock.readLock().lock();
+        try {
+            documents = new ArrayList<>(state.documents.values());
+            indexedUpTo = state.indexedUpTo;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        try {
+            Files.createDirectories(snapshotFile.getParent());
+            Path temp = Files.createTempFile(snapshotFile.getParent(), "documents-", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(temp)), 64 * 1024))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_FORMAT);
+                out.writeInt(PortugueseAnalyzer.VERSION);
+                writeString(out, indexedUpTo != null ? indexedUpTo.toString() : null);
+                out.writeInt(documents.size());
+                for (IndexedDocument document : documents) {
+                    document.write(out);
+                }
+            }
+            Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Snapshot do índice de busca gravado: {} documentos", documents.size());
+        } catch (IOException e) {
+            dirty.set(true);
+            log.error("Falha ao gravar o snapshot do índice de busca", e);
+        }
+    }
+
+    // Retorna a data até a qual o snapshot está atualizado, ou null se não houver snapshot válido
+    private LocalDateTime loadSnapshot() {
+        if (!Files.exists(snapshotFile)) {
+            return null;
+        }
+
+        long start = System.nanoTime();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(snapshotFile)), 64 * 1024))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_FORMAT
+                    || in.readInt() != PortugueseAnalyzer.VERSION) {
+                log.info("Snapshot do índice de busca em formato antigo; reconstruindo");
+                return null;
+            }
+            String indexedUpTo = readString(in);
+            if (indexedUpTo == null) {
+                return null;
+            }
+            int count = in.readInt();
+            IndexState loaded = new IndexState();
+            for (int i = 0; i < count; i++) {
+                loaded.put(IndexedDocument.read(in));
+            }
+
+            lock.writeLock().lock();
+            try {
+                state = loaded;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Snapshot do índice de busca lido: {} documentos em {} ms",
+                    count, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return LocalDateTime.parse(indexedUpTo);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Snapshot do índice de busca inválido; reconstruindo", e);
+            return null;
+        }
+    }
+
+    private void apply(Consumer<IndexState> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(state);
+            if (deferred != null) {
+                deferred.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        dirty.set(true);
+    }
+
+    private void beginBulk() {
+        lock.writeLock().lock();
+        try {
+            deferred = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Aplica o resultado de uma carga em lote e reaplica as alterações recebidas enquanto ela rodava
+    private void finishBulk(Function<IndexState, IndexState> bulk) {
+        lock.writeLock().lock();
+        try {
+            IndexState target = bulk.apply(state);
+            deferred.forEach(change -> change.accept(target));
+            deferred = null;
+            state = target;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void abortBulk() {
+        lock.writeLock().lock();
+        try {
+            deferred = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Só altera o índice depois que os dados estiverem confirmados no banco
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static IndexedDocument readDocument(ResultSet rs) throws SQLException {
+        long tenantId = rs.getLong("tenant_id");
+        if (rs.wasNull()) {
+            tenantId = NO_TENANT;
+        }
+        long authorId = rs.getLong("author_id");
+        Long author = rs.wasNull() ? null : authorId;
+        Timestamp created = rs.getTimestamp("creation_date");
+        Timestamp modified = rs.getTimestamp("last_modified_date");
+
+        return IndexedDocument.analyze(
+                Math.toIntExact(rs.getLong("id")),
+                tenantId,
+                rs.getString("title"),
+                rs.getString("keywords"),
+                rs.getString("content"),
+                FormativeDocument.DocumentType.valueOf(rs.getString("document_type")),
+                FormativeDocument.AccessLevel.valueOf(rs.getString("access_level")),
+                author,
+                rs.getString("author_name"),
+                created != null ? created.toLocalDateTime() : null,
+                modified != null ? modified.toLocalDateTime() : null);
+    }
+
+    // Trecho ao redor do primeiro termo encontrado no conteúdo, com os termos destacados em <mark>
+    private static String snippet(String content, Set<String> queryTerms) {
+        if (content == null || content.isEmpty()) {
+            return null;
+        }
+
+        List<PortugueseAnalyzer.Token> tokens = PortugueseAnalyzer.tokenize(content);
+        int center = -1;
+        for (PortugueseAnalyzer.Token token : tokens) {
+            if (queryTerms.contains(token.getTerm())) {
+                center = token.getStart();
+                break;
+            }
+        }
+
+        int from = center < 0 ? 0 : Math.max(0, center - SNIPPET_RADIUS);
+        int to = Math.min(content.length(), (center < 0 ? 0 : center) + SNIPPET_RADIUS * 2);
+        while (from > 0 && Character.isLetterOrDigit(content.charAt(from - 1))) {
+            from--;
+        }
+        while (to < content.length() && Character.isLetterOrDigit(content.charAt(to))) {
+            to++;
+        }
+
+        StringBuilder snippet = new StringBuilder();
+        if (from > 0) {
+            snippet.append("... ");
+        }
+        int position = from;
+        for (PortugueseAnalyzer.Token token : tokens) {
+            if (token.getStart() < from || token.getEnd() > to || !queryTerms.contains(token.getTerm())) {
+                continue;
+            }
+            snippet.append(HtmlUtils.htmlEscape(content.substring(position, token.getStart()), "UTF-8"))
+                    .append("<mark>")
+                    .append(HtmlUtils.htmlEscape(content.substring(token.getStart(), token.getEnd()), "UTF-8"))
+                    .append("</mark>");
+            position = token.getEnd();
+        }
+        snippet.append(HtmlUtils.htmlEscape(content.substring(position, to), "UTF-8"));
+        if (to < content.length()) {
+            snippet.append(" ...");
+        }
+        return snippet.toString().strip();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length != length) {
+            throw new IOException("Snapshot truncado");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Hit {
+        private final int doc;
+        private final double score;
+    }
+
+    // Conjunto completo do índice; só é alterado com o write lock adquirido
+    private static class IndexState {
+        private final Map<Long, Partition> partitions = new HashMap<>();
+        private final Map<Integer, IndexedDocument> documents = new HashMap<>();
+        private LocalDateTime indexedUpTo;
+
+        void put(IndexedDocument document) {
+            remove(document.getId());
+            documents.put(document.getId(), document);
+            partitions.computeIfAbsent(document.getTenantId(), k -> new Partition()).add(document);
+            LocalDateTime changedAt = document.getLastModifiedDate() != null
+                    ? document.getLastModifiedDate() : document.getCreationDate();
+            if (changedAt != null && (indexedUpTo == null || changedAt.isAfter(indexedUpTo))) {
+                indexedUpTo = changedAt;
+            }
+        }
+
+        void remove(int doc) {
+            IndexedDocument existing = documents.remove(doc);
+            if (existing != null) {
+                Partition partition = partitions.get(existing.getTenantId());
+                partition.remove(existing);
+                if (partition.documentCount == 0) {
+                    partitions.remove(existing.getTenantId());
+                }
+            }
+        }
+    }
+
+    // Índice invertido de um tenant: termo -> (documento -> frequência ponderada)
+    private static class Partition {
+        private final Map<String, Map<Integer, Float>> postings = new HashMap<>();
+        private final Map<Integer, Float> lengths = new HashMap<>();
+        private double totalLength;
+        private int documentCount;
+
+        void add(IndexedDocument document) {
+            document.getTermWeights().forEach((term, weight) ->
+                    postings.computeIfAbsent(term, k -> new HashMap<>()).put(document.getId(), weight));
+            lengths.put(document.getId(), document.getLength());
+            totalLength += document.getLength();
+            documentCount++;
+        }
+
+        void remove(IndexedDocument document) {
+            for (String term : document.getTermWeights().keySet()) {
+                Map<Integer, Float> docs = postings.get(term);
+                if (docs != null) {
+                    docs.remove(document.getId());
+                    if (docs.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+            lengths.remove(document.getId());
+            totalLength -= document.getLength();
+            documentCount--;
+        }
+
+        void collect(Set<String> queryTerms, BitSet visible, List<Hit> hits) {
+            List<Map<Integer, Float>> termPostings = new ArrayList<>(queryTerms.size());
+            for (String term : queryTerms) {
+                Map<Integer, Float> docs = postings.get(term);
+                if (docs == null) {
+                    return;
+                }
+                termPostings.add(docs);
+            }
+            termPostings.sort(Comparator.comparingInt(Map::size));
+
+            double averageLength = documentCount == 0 ? 1 : Math.max(totalLength / documentCount, 1);
+            double[] idf = new double[termPostings.size()];
+            for (int i = 0; i < idf.length; i++) {
+                int df = termPostings.get(i).size();
+                idf[i] = Math.log(1 + (documentCount - df + 0.5) / (df + 0.5));
+            }
+
+            Map<Integer, Float> rarest = termPostings.get(0);
+            candidates:
+            for (Map.Entry<Integer, Float> entry : rarest.entrySet()) {
+                int doc = entry.getKey();
+                if (!visible.get(doc)) {
+                    continue;
+                }
+                double score = 0;
+                for (int i = 0; i < termPostings.size(); i++) {
+                    Float frequency = i == 0 ? entry.getValue() : termPostings.get(i).get(doc);
+                    if (frequency == null) {
+                        continue candidates;
+                    }
+                    score += idf[i] * frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * lengthOf(doc) / averageLength));
+                }
+                hits.add(new Hit(doc, score));
+            }
+        }
+
+        private double lengthOf(int doc) {
+            return lengths.getOrDefault(doc, 1f);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class IndexedDocument {
+        private final int id;
+        private final long tenantId;
+        private final String title;
+        private final String keywords;
+        private final String content;
+        private final FormativeDocument.DocumentType documentType;
+        private final FormativeDocument.AccessLevel accessLevel;
+        private final Long authorId;
+        private final String authorName;
+        private final LocalDateTime creationDate;
+        private final LocalDateTime lastModifiedDate;
+        private final Map<String, Float> termWeights;
+        private final float length;
+
+        static IndexedDocument analyze(int id, long tenantId, String title, String keywords, String content,
+                                       FormativeDocument.DocumentType documentType,
+                                       FormativeDocument.AccessLevel accessLevel,
+                                       Long authorId, String authorName,
+                                       LocalDateTime creationDate, LocalDateTime lastModifiedDate) {
+            Map<String, Float> weights = new HashMap<>();
+            float length = addTerms(weights, title, TITLE_WEIGHT)
+                    + addTerms(weights, keywords, KEYWORDS_WEIGHT)
+                    + addTerms(weights, content, CONTENT_WEIGHT);
+            return new IndexedDocument(id, tenantId, title, keywords, content, documentType, accessLevel,
+                    authorId, authorName, creationDate, lastModifiedDate, weights, length);
+        }
+
+        private static float addTerms(Map<String, Float> weights, String text, float weight) {
+            List<String> terms = PortugueseAnalyzer.terms(text);
+            for (String term : terms) {
+                weights.merge(term, weight, Float::sum);
+            }
+            return terms.size() * weight;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeInt(id);
+            out.writeLong(tenantId);
+            writeString(out, title);
+            writeString(out, keywords);
+            writeString(out, content);
+            writeString(out, documentType.name());
+            writeString(out, accessLevel.name());
+            out.writeLong(authorId != null ? authorId : -1);
+            writeString(out, authorName);
+            writeString(out, creationDate != null ? creationDate.toString() : null);
+            writeString(out, lastModifiedDate != null ? lastModifiedDate.toString() : null);
+            out.writeFloat(length);
+            out.writeInt(termWeights.size());
+            for (Map.Entry<String, Float> entry : termWeights.entrySet()) {
+                writeString(out, entry.getKey());
+                out.writeFloat(entry.getValue());
+            }
+        }
+
+        static IndexedDocument read(DataInputStream in) throws IOException {
+            int id = in.readInt();
+            long tenantId = in.readLong();
+            String title = readString(in);
+            String keywords = readString(in);
+            String content = readString(in);
+            FormativeDocument.DocumentType documentType = FormativeDocument.DocumentType.valueOf(readString(in));
+            FormativeDocument.AccessLevel accessLevel = FormativeDocument.AccessLevel.valueOf(readString(in));
+            long authorId = in.readLong();
+            String authorName = readString(in);
+            String creationDate = readString(in);
+            String lastModifiedDate = readString(in);
+            float length = in.readFloat();
+            int termCount = in.readInt();
+            Map<String, Float> weights = new HashMap<>(termCount * 2);
+            for (int i = 0; i < termCount; i++) {
+                weights.put(readString(in), in.readFloat());
+            }
+            return new IndexedDocument(id, tenantId, title, keywords, content, documentType, accessLevel,
+                    authorId >= 0 ? authorId : null, authorName,
+                    creationDate != null ? LocalDateTime.parse(creationDate) : null,
+                    lastModifiedDate != null ? LocalDateTime.parse(lastModifiedDate) : null,
+                    weights, length);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.gestaoformativa.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Blobs em disco: <raiz>/ab/cd/<hash>. Uploads são gravados em <raiz>/tmp e movidos
+// atomicamente para o destino, então um arquivo publicado está sempre completo.
+@Slf4j
+@Service
+public class FileSystemBlobStore implements BlobStore {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path root;
+    private final Path staging;
+
+    public FileSystemBlobStore(@Value("${app.attachments.storage-dir:data/attachments}") String storageDir) throws IOException {
+        this.root = Paths.get(storageDir).toAbsolutePath().normalize();
+        this.staging = root.resolve("tmp");
+        Files.createDirectories(staging);
+        log.info("Armazenamento de anexos em {}", root);
+    }
+
+    @Override
+    public StagedBlob stage(InputStream input) throws IOException {
+        Path temp = Files.createTempFile(staging, "upload-", ".tmp");
+        MessageDigest digest = sha256();
+        long size;
+        try (InputStream hashing = new DigestInputStream(new BufferedInputStream(input, BUFFER_SIZE), digest);
+             OutputStream out = Files.newOutputStream(temp)) {
+            size = hashing.transferTo(out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return new StagedBlob(HexFormat.of().formatHex(digest.digest()), size, temp);
+    }
+
+    @Override
+    public void commit(StagedBlob staged) throws IOException {
+        Path target = pathFor(staged.getHash());
+        if (Files.exists(target)) {
+            discard(staged);
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(staged.getTempFile(), target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Outro upload do mesmo conteúdo publicou primeiro
+            discard(staged);
+        } catch (AtomicMoveNotSupportedException e) {
+            try {
+                Files.move(staged.getTempFile(), target);
+            } catch (FileAlreadyExistsException alreadyStored) {
+                discard(staged);
+            }
+        }
+    }
+
+    @Override
+    public void discard(StagedBlob staged) {
+        try {
+            Files.deleteIfExists(staged.getTempFile());
+        } catch (IOException e) {
+            log.warn("Não foi possível remover o upload temporário {}", staged.getTempFile(), e);
+        }
+    }
+
+    @Override
+    public void purgeStaging(Instant olderThan) throws IOException {
+        try (Stream<Path> files = Files.list(staging)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (Files.getLastModifiedTime(file).toInstant().isBefore(olderThan)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean exists(String hash) {
+        return Files.exists(pathFor(hash));
+    }
+
+    @Override
+    public InputStream open(String hash, long offset, long length) throws IOException {
+        FileChannel channel = FileChannel.open(pathFor(hash), StandardOpenOption.READ);
+        channel.position(offset);
+        return new BoundedInputStream(Channels.newInputStream(channel), length);
+    }
+
+    @Override
+    public Optional<Path> localPath(String hash) {
+        Path path = pathFor(hash);
+        return Files.exists(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    @Override
+    public void delete(String hash) throws IOException {
+        Files.deleteIfExists(pathFor(hash));
+    }
+
+    @Override
+    public void forEachStored(BiConsumer<String, Instant> consumer) throws IOException {
+        try (Stream<Path> files = Files.walk(root, 3)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (!file.startsWith(staging) && HASH_PATTERN.matcher(name).matches() && Files.isRegularFile(file)) {
+                    consumer.accept(name, Files.getLastModifiedTime(file).toInstant());
+                }
+            }
+        }
+    }
+
+    private Path pathFor(String hash) {
+        if (!HASH_PATTERN.matcher(hash).matches()) {
+            throw new IllegalArgumentException("Invalid blob hash: " + hash);
+        }
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // Limita a leitura ao intervalo solicitado
+    private static class BoundedInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int value = super.read();
+            if (value != -1) {
+                remaining--;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int count = super.read(buffer, off, (int) Math.min(len, remaining));
+            if (count > 0) {
+                remaining -= count;
+            }
+            return count;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.gestaoformativa.service;
 
+import com.gestaoformativa.dto.CursorPageDTO;
+import com.gestaoformativa.dto.DocumentSummaryDTO;
 import com.gestaoformativa.model.*;
 import com.gestaoformativa.repository.DocumentReadingProgressRepository;
 import com.gestaoformativa.repository.FormativeDocumentRepository;
@@ -7,10 +9,10 @@ import com.gestaoformativa.repository.UserRepository;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 public class FormativeDocumentService {
@@ -24,53 +26,110 @@ public class FormativeDocumentService {
     @Autowired
     private DocumentReadingProgressRepository progressRepository;
 
+    @Autowired
+    private DocumentAccessIndex accessIndex;
+
+    @Autowired
+    private EmbeddedSearchIndex searchIndex;
+
+    @Autowired
+    private RecommendationService recommendationService;
+
+    @Autowired
+    private DocumentRelatedService relatedService;
+
     public FormativeDocument createDocument(FormativeDocument document, User author) {
         document.setAuthor(author);
         document.setCreationDate(LocalDateTime.now());
         document.setLastModifiedDate(LocalDateTime.now());
-        return documentRepository.save(document);
+        FormativeDocument saved = documentRepository.save(document);
+        accessIndex.index(saved);
+        recommendationService.documentPublished(saved.getId());
+        searchIndex.index(saved.getId());
+        return saved;
     }
 
-    public List<FormativeDocument> getAccessibleDocuments(User user) {
-        List<FormativeDocument> allDocuments = documentRepository.findAll();
+    private static final int MAX_PAGE_SIZE = 100;
+    // Vizinhos lidos de document_related antes do filtro de acesso
+    private static final int MAX_RELATED = 100;
 
-        return allDocuments.stream()
-                .filter(user::canAccessDocument)
-                .collect(Collectors.toList());
+    // Listagens retornam apenas o resumo; o conteúdo completo só é lido por getDocumentById
+    public List<DocumentSummaryDTO> getAccessibleDocuments(DocumentAccessProfile profile) {
+        return documentRepository.findAccessibleSummaries(profile);
     }
 
-    public List<FormativeDocument> getDocumentsForStage(User.LifeStage stage) {
-        return documentRepository.findByDocumentTypeAndAllowedStagesContaining(
-                FormativeDocument.DocumentType.STAGE_SPECIFIC, stage);
+    // Listagem paginada por cursor com as regras de acesso avaliadas no banco
+    public CursorPageDTO<DocumentSummaryDTO> getAccessibleDocumentSummaries(DocumentAccessProfile profile, Long cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Long before = cursor != null ? cursor : Long.MAX_VALUE;
+
+        // Busca um item a mais para saber se existe próxima página
+        List<DocumentSummaryDTO> rows = documentRepository.findAccessibleSummariesBefore(
+                profile, before, PageRequest.of(0, pageSize + 1));
+
+        boolean hasNext = rows.size() > pageSize;
+        List<DocumentSummaryDTO> items = hasNext ? rows.subList(0, pageSize) : rows;
+        Long nextCursor = hasNext ? items.get(items.size() - 1).getId() : null;
+
+        return new CursorPageDTO<>(items, nextCursor, hasNext);
     }
 
-    public List<FormativeDocument> getDocumentsForLocation(MissionLocation location) {
-        return documentRepository.findByDocumentTypeAndAllowedLocationsContaining(
-                FormativeDocument.DocumentType.LOCATION_SPECIFIC, location);
+    public List<DocumentSummaryDTO> getDocumentsForStage(User user, User.LifeStage stage) {
+        return documentRepository.findAccessibleSummariesForStage(DocumentAccessProfile.of(user), stage);
     }
 
-    public DocumentReadingProgress updateReadingProgress(User user, FormativeDocument document, Integer progressPercentage) throws IllegalAccessException {
-        if (!user.canAccessDocument(document)) {
-            throw new IllegalAccessException("User does not have access to this document");
+    public List<DocumentSummaryDTO> getDocumentsForLocation(User user, MissionLocation location) {
+        return documentRepository.findAccessibleSummariesForLocation(DocumentAccessProfile.of(user), location.getId());
+    }
+
+    // Resumos na mesma ordem dos ids recebidos (consultas que ordenam por relevância ou visualizações)
+    public List<DocumentSummaryDTO> getSummariesInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, DocumentSummaryDTO> byId = new HashMap<>();
+        for (DocumentSummaryDTO summary : documentRepository.findSummariesByIdIn(ids)) {
+            byId.put(summary.getId(), summary);
         }
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
 
-        DocumentReadingProgress progress = user.getDocumentProgress(document);
-        if (progress == null) {
-            progress = new DocumentReadingProgress();
-            progress.setUser(user);
-            progress.setDocument(document);
-            progress.setFirstViewDate(LocalDateTime.now());
+    // "Quem leu este documento também leu", filtrado pelo acesso do usuário.
+    // Retorna null se o documento não existe; SecurityException se o usuário não pode acessá-lo
+    public List<DocumentSummaryDTO> getRelatedDocuments(User user, Long documentId, int limit) {
+        DocumentAccessProfile profile = DocumentAccessProfile.of(user);
+        Boolean allowed = accessIndex.canAccess(profile, documentId);
+        if (allowed == null) {
+            if (!documentRepository.existsById(documentId)) {
+                return null;
+            }
+            allowed = !documentRepository.findAccessibleIdsIn(profile, List.of(documentId)).isEmpty();
+        }
+        if (!allowed) {
+            throw new SecurityException("User does not have access to this document");
         }
 
-        progress.setProgressPercentage(progressPercentage);
-        progress.setLastViewDate(LocalDateTime.now());
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<Long> candidates = relatedService.getRelatedDocumentIds(documentId, MAX_RELATED);
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+        Set<Long> accessible = accessIndex.isReady() ? null
+                : new HashSet<>(documentRepository.findAccessibleIdsIn(profile, candidates));
+        List<Long> ids = candidates.stream()
+                .filter(id -> accessible != null ? accessible.contains(id) : Boolean.TRUE.equals(accessIndex.canAccess(profile, id)))
+                .limit(pageSize)
+                .toList();
+        return getSummariesInOrder(ids);
+    }
 
-        if (progressPercentage >= 100) {
-            progress.setCompleted(true);
-            progress.setCompletedDate(LocalDateTime.now());
+    public DocumentReadingProgress updateReadingProgress(User user, FormativeDocument document, Integer progressPercentage) throws IllegalAccessException {
+        if (!accessIndex.canAccess(user, document)) {
+            throw new IllegalAccessException("User does not have access to this document");
         }
 
-        return progressRepository.save(progress);
+        return progressRepository.upsertProgress(user.getId(), document.getId(),
+                progressPercentage != null ? progressPercentage : 0, null);
     }
 
     public FormativeDocument grantAccessToUser(FormativeDocument document, User user) {
@@ -78,7 +137,10 @@ public class FormativeDocumentService {
             document.setAllowedUsers(new HashSet<>());
         }
         document.getAllowedUsers().add(user);
-        return documentRepository.save(document);
+        FormativeDocument saved = documentRepository.save(document);
+        accessIndex.grantUser(saved.getId(), user.getId());
+        recommendationService.documentPublished(saved.getId());
+        return saved;
     }
 
     public FormativeDocument grantAccessToRole(FormativeDocument document, Role role) {
@@ -86,7 +148,10 @@ public class FormativeDocumentService {
             document.setAllowedRoles(new HashSet<>());
         }
         document.getAllowedRoles().add(role);
-        return documentRepository.save(document);
+        FormativeDocument saved = documentRepository.save(document);
+        accessIndex.grantRole(saved.getId(), role.getId());
+        recommendationService.documentPublished(saved.getId());
+        return saved;
     }
 
     public FormativeDocument grantAccessToStage(FormativeDocument document, User.LifeStage stage) {
@@ -94,7 +159,10 @@ public class FormativeDocumentService {
             document.setAllowedStages(new HashSet<>());
         }
         document.getAllowedStages().add(stage);
-        return documentRepository.save(document);
+        FormativeDocument saved = documentRepository.save(document);
+        accessIndex.grantStage(saved.getId(), stage);
+        recommendationService.documentPublished(saved.getId());
+        return saved;
     }
 
     public FormativeDocument getDocumentById(Long id) {
@@ -110,12 +178,7 @@ public class FormativeDocumentService {
         document.setDocumentType(documentDetails.getDocumentType());
         document.setAccessLevel(documentDetails.getAccessLevel());
         document.setKeywords(documentDetails.getKeywords());
-
-        if (documentDetails.getAttachmentData() != null && documentDetails.getAttachmentData().length > 0) {
-            document.setAttachmentData(documentDetails.getAttachmentData());
-            document.setAttachmentName(documentDetails.getAttachmentName());
-            document.setAttachmentType(documentDetails.getAttachmentType());
-        }
+        document.setLastModifiedDate(LocalDateTime.now());
 
         if (documentDetails.getAllowedUsers() != null) {
             document.setAllowedUsers(documentDetails.getAllowedUsers());
@@ -130,13 +193,19 @@ public class FormativeDocumentService {
             document.setAllowedLocations(documentDetails.getAllowedLocations());
         }
 
-        return documentRepository.save(document);
+        FormativeDocument saved = documentRepository.save(document);
+        accessIndex.index(saved);
+        recommendationService.documentPublished(saved.getId());
+        searchIndex.index(saved.getId());
+        return saved;
     }
 
     @Transactional
     public void deleteDocument(Long id) {
         FormativeDocument document = getDocumentById(id);
         documentRepository.delete(document);
+        accessIndex.remove(id);
+        searchIndex.remove(id);
     }
 
     public FormativeDocument grantAccessToLocation(FormativeDocument document, MissionLocation location) {
@@ -144,7 +213,10 @@ public class FormativeDocumentService {
             document.setAllowedLocations(new HashSet<>());
         }
         document.getAllowedLocations().add(location);
-        return documentRepository.save(document);
+        FormativeDocument saved = documentRepository.save(document);
+        accessIndex.grantLocation(saved.getId(), location.getId());
+        recommendationService.documentPublished(saved.getId());
+        return saved;
     }
 
     public List<FormativeDocument> getPublicDocuments() {
@@ -154,4 +226,4 @@ public class FormativeDocumentService {
     public List<FormativeDocument> getDocumentsByType(FormativeDocument.DocumentType documentType) {
         return documentRepository.findByDocumentType(documentType);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,66 @@
+package com.gestaoformativa.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Buckets em memória, sem locks: o estado de cada chave é um único long atualizado por CAS.
+// Buckets cheios (instante teórico no passado) não guardam informação e são descartados
+// periodicamente, ou na hora quando o número de chaves passa de max-keys.
+@Service
+public class LocalRateLimitBackend implements RateLimitBackend {
+
+    private final int maxKeys;
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    public LocalRateLimitBackend(@Value("${app.rate-limit.local.max-keys:100000}") int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    @Override
+    public long tryConsume(String key, int capacity, long intervalMicros) {
+        long now = nowMicros();
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxKeys) {
+                evictIdle(now);
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+
+        long tolerance = capacity * intervalMicros;
+        while (true) {
+            long tat = bucket.get();
+            long next = Math.max(tat, now) + intervalMicros;
+            long wait = next - tolerance - now;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(tat, next)) {
+                return 0;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.local.cleanup-interval-ms:60000}")
+    public void evictIdle() {
+        evictIdle(nowMicros());
+    }
+
+    private void evictIdle(long now) {
+        buckets.entrySet().removeIf(entry -> entry.getValue().get() <= now);
+    }
+
+    int size() {
+        return buckets.size();
+    }
+
+    private static long nowMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(System.nanoTime());
+    }
+}
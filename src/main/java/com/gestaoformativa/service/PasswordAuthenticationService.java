@@ -0,0 +1,111 @@
+package com.gestaoformativa.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Autenticação por senha (BCrypt) em um pool próprio e limitado, fora das threads do Tomcat:
+// em picos de login as demais rotas continuam sendo atendidas. Com a fila cheia a tentativa
+// é recusada na hora (RejectedExecutionException) para o controller responder 503.
+@Slf4j
+@Service
+public class PasswordAuthenticationService {
+
+    private final AuthenticationManager authenticationManager;
+    private final ThreadPoolExecutor executor;
+    private final int retryAfterSeconds;
+
+    private final Timer verificationSuccess;
+    private final Timer verificationFailure;
+    private final Timer queueWait;
+    private final Counter rejected;
+
+    public PasswordAuthenticationService(AuthenticationManager authenticationManager,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${app.password-hashing.threads:0}") int threads,
+                                         @Value("${app.password-hashing.queue-capacity:50}") int queueCapacity,
+                                         @Value("${app.password-hashing.retry-after-seconds:2}") int retryAfterSeconds) {
+        this.authenticationManager = authenticationManager;
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        // Padrão: metade dos processadores, para o BCrypt não ocupar toda a CPU
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.verificationSuccess = Timer.builder("auth.password.verification")
+                .description("Tempo de verificação de senha no login")
+                .tag("result", "success")
+                .register(meterRegistry);
+        this.verificationFailure = Timer.builder("auth.password.verification")
+                .description("Tempo de verificação de senha no login")
+                .tag("result", "failure")
+                .register(meterRegistry);
+        this.queueWait = Timer.builder("auth.password.queue.wait")
+                .description("Tempo de espera na fila de verificação de senha")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("auth.password.rejected")
+                .description("Logins recusados com a fila de verificação de senha cheia")
+                .register(meterRegistry);
+        Gauge.builder("auth.password.queue.size", executor, e -> e.getQueue().size())
+                .description("Verificações de senha aguardando na fila")
+                .register(meterRegistry);
+
+        log.info("Pool de verificação de senha: {} threads, fila de {}", poolSize, queueCapacity);
+    }
+
+    // Completa com a autenticação ou com a AuthenticationException; lança RejectedExecutionException com a fila cheia
+    public CompletableFuture<Authentication> authenticate(String username, String password) {
+        long submittedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long start = System.nanoTime();
+                queueWait.record(start - submittedAt, TimeUnit.NANOSECONDS);
+                try {
+                    Authentication authentication = authenticationManager.authenticate(
+                            new UsernamePasswordAuthenticationToken(username, password));
+                    verificationSuccess.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    return authentication;
+                } catch (AuthenticationException e) {
+                    verificationFailure.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    throw e;
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,147 @@
+package com.gestaoformativa.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+// Análise de texto para o índice de busca embutido: separa as palavras, remove acentos,
+// descarta stopwords e reduz cada palavra a um radical simples (plural, gênero, grau e advérbios).
+// Indexação e consulta usam a mesma análise, então "oração", "oracao" e "orações" casam entre si.
+public final class PortugueseAnalyzer {
+
+    // Incrementar ao mudar a análise: snapshots gravados com outra versão são descartados
+    public static final int VERSION = 1;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "o", "e", "as", "os", "ao", "aos", "um", "uma", "uns", "umas",
+            "de", "da", "do", "das", "dos", "em", "na", "no", "nas", "nos", "num", "numa",
+            "por", "pela", "pelo", "pelas", "pelos", "para", "pra", "com", "sem", "sob", "sobre",
+            "entre", "ate", "apos", "desde", "contra", "que", "se", "ou", "mas", "nem", "como",
+            "quando", "onde", "porque", "pois", "mais", "menos", "muito", "muita", "muitos", "muitas",
+            "ja", "nao", "sim", "tambem", "so", "ha", "foi", "ser", "sao", "era", "estao", "tem",
+            "eu", "tu", "ele", "ela", "vos", "eles", "elas", "me", "te", "lhe", "lhes",
+            "meu", "minha", "meus", "minhas", "seu", "sua", "seus", "suas", "nosso", "nossa",
+            "este", "esta", "estes", "estas", "esse", "essa", "esses", "essas", "isto", "isso",
+            "aquele", "aquela", "aqueles", "aquelas", "aquilo", "qual", "quais", "cada", "todo", "toda",
+            "todos", "todas", "outro", "outra", "outros", "outras");
+
+    private PortugueseAnalyzer() {
+    }
+
+    // Termo analisado e sua posição no texto original
+    @Getter
+    @AllArgsConstructor
+    public static class Token {
+        private final String term;
+        private final int start;
+        private final int end;
+    }
+
+    public static List<Token> tokenize(String text) {
+        List<Token> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && !Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < length && (Character.isLetterOrDigit(text.charAt(i)) || Character.getType(text.charAt(i)) == Character.NON_SPACING_MARK)) {
+                i++;
+            }
+            if (i > start) {
+                String term = analyzeWord(text.substring(start, i));
+                if (term != null) {
+                    tokens.add(new Token(term, start, i));
+                }
+            }
+        }
+        return tokens;
+    }
+
+    public static List<String> terms(String text) {
+        return tokenize(text).stream().map(Token::getTerm).toList();
+    }
+
+    // Retorna null para palavras que não devem ser indexadas
+    static String analyzeWord(String word) {
+        String folded = fold(word);
+        if (folded.isEmpty() || STOPWORDS.contains(folded)) {
+            return null;
+        }
+        return stem(folded);
+    }
+
+    static String fold(String word) {
+        String decomposed = Normalizer.normalize(word.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("");
+    }
+
+    // Radicalizador leve para português (palavras já sem acento)
+    static String stem(String word) {
+        if (word.length() < 4 || !Character.isLetter(word.charAt(word.length() - 1))) {
+            return word;
+        }
+        String stem = removePlural(word);
+        stem = removeSuffix(stem, "mente", 4);
+        stem = removeDegree(stem);
+        return removeFinalVowel(stem);
+    }
+
+    private static String removePlural(String word) {
+        if (!word.endsWith("s") || word.endsWith("ss")) {
+            return word;
+        }
+        if (word.endsWith("oes") || word.endsWith("aes")) {
+            return word.substring(0, word.length() - 3) + "ao";
+        }
+        if (word.endsWith("ns")) {
+            return word.substring(0, word.length() - 2) + "m";
+        }
+        if (word.length() > 4 && (word.endsWith("ais") || word.endsWith("eis") || word.endsWith("ois"))) {
+            return word.substring(0, word.length() - 2) + "l";
+        }
+        if (word.endsWith("res") || word.endsWith("zes") || word.endsWith("les")) {
+            return word.substring(0, word.length() - 2);
+        }
+        return word.substring(0, word.length() - 1);
+    }
+
+    private static String removeDegree(String word) {
+        for (String suffix : new String[]{"issimo", "issima", "zinho", "zinha", "inho", "inha"}) {
+            if (word.endsWith(suffix) && word.length() - suffix.length() >= 3) {
+                return word.substring(0, word.length() - suffix.length());
+            }
+        }
+        return word;
+    }
+
+    private static String removeFinalVowel(String word) {
+        if (word.length() > 3) {
+            char last = word.charAt(word.length() - 1);
+            if (last == 'a' || last == 'e' || last == 'o') {
+                return word.substring(0, word.length() - 1);
+            }
+        }
+        return word;
+    }
+
+    private static String removeSuffix(String word, String suffix, int minRemaining) {
+        if (word.endsWith(suffix) && word.length() - suffix.length() >= minRemaining) {
+            return word.substring(0, word.length() - suffix.length());
+        }
+        return word;
+    }
+}
@@ -0,0 +1,119 @@
+package com.gestaoformativa.service;
+
+import com.gestaoformativa.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+// Usuários autenticados por username, com TTL curto, para que o filtro JWT não consulte
+// usuário + papel + localização a cada requisição. Alterações de usuário e de papéis invalidam
+// as entradas; em outras instâncias a mudança vale ao fim do TTL.
+// Os usuários guardados são entidades desanexadas compartilhadas entre requisições: não devem ser alterados.
+@Service
+public class PrincipalCache {
+
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final int maxSize;
+
+    private final Map<String, CachedPrincipal> entries = new ConcurrentHashMap<>();
+    // Incrementado a cada invalidação: um carregamento iniciado antes dela não é guardado
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public PrincipalCache(MeterRegistry meterRegistry,
+                          @Value("${app.principal-cache.enabled:true}") boolean enabled,
+                          @Value("${app.principal-cache.ttl-ms:30000}") long ttlMillis,
+                          @Value("${app.principal-cache.max-size:10000}") int maxSize) {
+        this.enabled = enabled;
+        this.ttlMillis = ttlMillis;
+        this.maxSize = maxSize;
+
+        this.hits = Counter.builder("principal.cache.lookups")
+                .description("Usuários autenticados encontrados no cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("principal.cache.lookups")
+                .description("Usuários autenticados carregados do banco")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("principal.cache.size", entries, Map::size)
+                .description("Usuários autenticados em cache")
+                .register(meterRegistry);
+    }
+
+    public User get(String username, Function<String, User> loader) {
+        if (!enabled) {
+            return loader.apply(username);
+        }
+
+        long now = System.currentTimeMillis();
+        CachedPrincipal cached = entries.get(username);
+        if (cached != null && cached.expiresAt > now) {
+            hits.increment();
+            return cached.user;
+        }
+
+        misses.increment();
+        long loadedAt = generation.get();
+        User user = loader.apply(username);
+        if (entries.size() >= maxSize) {
+            entries.values().removeIf(entry -> entry.expiresAt <= now);
+            if (entries.size() >= maxSize) {
+                entries.clear();
+            }
+        }
+        entries.put(username, new CachedPrincipal(user, now + ttlMillis));
+        // Invalidação concorrente: a entrada recém-carregada pode estar desatualizada
+        if (generation.get() != loadedAt) {
+            entries.remove(username);
+        }
+        return user;
+    }
+
+    public void invalidateUser(Long userId) {
+        invalidate(() -> entries.values().removeIf(entry -> entry.user.getId().equals(userId)));
+    }
+
+    // Alterações de papel afetam as permissões de vários usuários
+    public void invalidateAll() {
+        invalidate(entries::clear);
+    }
+
+    // Remove agora e de novo após o commit, para descartar o que outra requisição
+    // tenha carregado antes de a alteração ficar visível
+    private void invalidate(Runnable removal) {
+        generation.incrementAndGet();
+        removal.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    generation.incrementAndGet();
+                    removal.run();
+                }
+            });
+        }
+    }
+
+    private static final class CachedPrincipal {
+        private final User user;
+        private final long expiresAt;
+
+        CachedPrincipal(User user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
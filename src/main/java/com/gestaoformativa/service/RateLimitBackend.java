@@ -0,0 +1,11 @@
+package com.gestaoformativa.service;
+
+// Armazenamento dos token buckets do limite de requisições. Os buckets usam GCRA
+// (generic cell rate algorithm): cada chave guarda só o "instante teórico de chegada" da
+// próxima requisição, o que equivale a um token bucket de capacidade capacity que recebe
+// uma ficha a cada intervalMicros.
+public interface RateLimitBackend {
+
+    // Consome uma ficha da chave; retorna 0 se permitido ou quantos microssegundos esperar
+    long tryConsume(String key, int capacity, long intervalMicros);
+}
@@ -0,0 +1,127 @@
+package com.gestaoformativa.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Limites de requisições por IP, usuário e tenant para o login, a busca e o onboarding.
+// Cada política é um token bucket: capacity requisições em rajada, reabastecido a per-minute
+// fichas por minuto (app.rate-limit.<política>.*). Com backend=redis os buckets são
+// compartilhados entre as instâncias; se o Redis falhar, os limites passam a ser aplicados
+// localmente até ele voltar.
+@Slf4j
+@Service
+public class RateLimitService {
+
+    public enum Policy {
+        LOGIN_IP("login-ip", 10, 10),
+        LOGIN_USERNAME("login-username", 5, 5),
+        SEARCH_USER("search-user", 60, 120),
+        SEARCH_TENANT("search-tenant", 600, 1200),
+        ONBOARDING_IP("onboarding-ip", 3, 1);
+
+        private final String property;
+        private final int defaultCapacity;
+        private final int defaultPerMinute;
+
+        Policy(String property, int defaultCapacity, int defaultPerMinute) {
+            this.property = property;
+            this.defaultCapacity = defaultCapacity;
+            this.defaultPerMinute = defaultPerMinute;
+        }
+
+        public String getProperty() {
+            return property;
+        }
+    }
+
+    private final boolean enabled;
+    private final RateLimitBackend backend;
+    private final LocalRateLimitBackend localBackend;
+    private final Map<Policy, Limit> limits = new EnumMap<>(Policy.class);
+    private final Map<Policy, Counter> rejected = new EnumMap<>(Policy.class);
+    private final Counter backendFailures;
+    private final long backendRetryMillis;
+    // Após uma falha do Redis, os limites ficam locais até este instante (sem esperar timeouts a cada requisição)
+    private volatile long backendRetryAt = 0;
+
+    public RateLimitService(LocalRateLimitBackend localBackend,
+                            RedisRateLimitBackend redisBackend,
+                            Environment environment,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.rate-limit.enabled:true}") boolean enabled,
+                            @Value("${app.rate-limit.backend:local}") String backend,
+                            @Value("${app.rate-limit.redis.retry-interval-ms:10000}") long backendRetryMillis) {
+        this.enabled = enabled;
+        this.backendRetryMillis = backendRetryMillis;
+        this.localBackend = localBackend;
+        this.backend = "redis".equalsIgnoreCase(backend) ? redisBackend : localBackend;
+
+        for (Policy policy : Policy.values()) {
+            String prefix = "app.rate-limit." + policy.property;
+            int capacity = environment.getProperty(prefix + ".capacity", Integer.class, policy.defaultCapacity);
+            int perMinute = environment.getProperty(prefix + ".per-minute", Integer.class, policy.defaultPerMinute);
+            limits.put(policy, new Limit(Math.max(1, capacity), TimeUnit.MINUTES.toMicros(1) / Math.max(1, perMinute)));
+            rejected.put(policy, Counter.builder("rate.limit.rejected")
+                    .description("Requisições recusadas pelo limite de taxa")
+                    .tag("policy", policy.property)
+                    .register(meterRegistry));
+        }
+        this.backendFailures = Counter.builder("rate.limit.backend.failures")
+                .description("Falhas do Redis no limite de taxa (aplicado localmente)")
+                .register(meterRegistry);
+
+        if (enabled) {
+            log.info("Limite de requisições ativo com backend {}", this.backend == redisBackend ? "redis" : "local");
+        }
+    }
+
+    // Segundos até a próxima tentativa permitida; 0 se a requisição pode seguir
+    public long check(Policy policy, String subject) {
+        if (!enabled || subject == null || subject.isEmpty()) {
+            return 0;
+        }
+
+        Limit limit = limits.get(policy);
+        String key = policy.property + ":" + subject;
+        long waitMicros = consume(key, limit);
+
+        if (waitMicros <= 0) {
+            return 0;
+        }
+        rejected.get(policy).increment();
+        return Math.max(1, TimeUnit.MICROSECONDS.toSeconds(waitMicros + TimeUnit.SECONDS.toMicros(1) - 1));
+    }
+
+    private long consume(String key, Limit limit) {
+        if (backend != localBackend && System.currentTimeMillis() >= backendRetryAt) {
+            try {
+                return backend.tryConsume(key, limit.capacity, limit.intervalMicros);
+            } catch (DataAccessException e) {
+                backendFailures.increment();
+                backendRetryAt = System.currentTimeMillis() + backendRetryMillis;
+                log.warn("Redis indisponível para o limite de requisições; aplicando limites locais por {} ms: {}",
+                        backendRetryMillis, e.getMessage());
+            }
+        }
+        return localBackend.tryConsume(key, limit.capacity, limit.intervalMicros);
+    }
+
+    private static final class Limit {
+        private final int capacity;
+        private final long intervalMicros;
+
+        Limit(int capacity, long intervalMicros) {
+            this.capacity = capacity;
+            this.intervalMicros = intervalMicros;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.gestaoformativa.service;
+
+import com.gestaoformativa.dto.UniqueReadersDTO;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Leitores distintos por (documento, localização, dia) e por (localização, dia) em sketches HyperLogLog.
+// As leituras são acumuladas em memória e combinadas com os sketches do banco a cada flush
+// (SELECT ... FOR UPDATE, máximo por registrador, UPDATE), então instâncias diferentes não perdem leitores.
+// Uma consulta por intervalo lê um sketch por dia e localização, independente do número de leitores.
+@Slf4j
+@Service
+public class ReaderSketchService {
+
+    private static final long NO_LOCATION = 0L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int retentionDays;
+
+    private final Map<DocumentDay, HyperLogLog> pendingDocuments = new ConcurrentHashMap<>();
+    private final Map<LocationDay, HyperLogLog> pendingLocations = new ConcurrentHashMap<>();
+
+    private final Timer flushTimer;
+
+    public ReaderSketchService(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.reader-sketches.enabled:true}") boolean enabled,
+                               @Value("${app.reader-sketches.retention-days:400}") int retentionDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.retentionDays = retentionDays;
+
+        this.flushTimer = Timer.builder("reader.sketches.flush")
+                .description("Tempo de gravação dos sketches de leitores distintos")
+                .register(meterRegistry);
+        Gauge.builder("reader.sketches.pending", this, service -> service.pendingDocuments.size() + service.pendingLocations.size())
+                .description("Sketches de leitores aguardando gravação")
+                .register(meterRegistry);
+    }
+
+    public void recordRead(Long userId, Long locationId, Long documentId) {
+        if (!enabled || userId == null || documentId == null) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        long location = locationId != null ? locationId : NO_LOCATION;
+
+        // compute é atômico por chave, então o sketch não é alterado enquanto o flush o remove
+        pendingDocuments.compute(new DocumentDay(documentId, location, today), (key, sketch) -> add(sketch, userId));
+        if (locationId != null) {
+            pendingLocations.compute(new LocationDay(locationId, today), (key, sketch) -> add(sketch, userId));
+        }
+    }
+
+    private static HyperLogLog add(HyperLogLog sketch, long userId) {
+        HyperLogLog target = sketch != null ? sketch : new HyperLogLog();
+        target.add(userId);
+        return target;
+    }
+
+    @Scheduled(fixedDelayString = "${app.reader-sketches.flush-interval-ms:60000}",
+            initialDelayString = "${app.reader-sketches.flush-interval-ms:60000}")
+    public synchronized void flush() {
+        if (pendingDocuments.isEmpty() && pendingLocations.isEmpty()) {
+            return;
+        }
+        flushTimer.record(() -> {
+            // Uma chave que falha volta para a fila e as demais seguem sendo gravadas
+            int failed = 0;
+            for (DocumentDay key : pendingDocuments.keySet()) {
+                HyperLogLog sketch = pendingDocuments.remove(key);
+                if (sketch != null && !write(sketch, "document_reader_sketches", "document_id = ? AND location_id = ? AND day = ?",
+                        "INSERT INTO document_reader_sketches (document_id, location_id, day, sketch) VALUES (?, ?, ?, ?) ON CONFLICT DO NOTHING",
+                        key.documentId, key.locationId, Date.valueOf(key.day))) {
+                    pendingDocuments.merge(key, sketch, ReaderSketchService::union);
+                    failed++;
+                }
+            }
+            for (LocationDay key : pendingLocations.keySet()) {
+                HyperLogLog sketch = pendingLocations.remove(key);
+                if (sketch != null && !write(sketch, "location_reader_sketches", "location_id = ? AND day = ?",
+                        "INSERT INTO location_reader_sketches (location_id, day, sketch) VALUES (?, ?, ?) ON CONFLICT DO NOTHING",
+                        key.locationId, Date.valueOf(key.day))) {
+                    pendingLocations.merge(key, sketch, ReaderSketchService::union);
+                    failed++;
+                }
+            }
+            if (failed > 0) {
+                log.error("{} sketches de leitores não foram gravados; serão tentados novamente", failed);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    // Insere o sketch; se a linha já existe, combina com a gravada sob bloqueio da linha.
+    // Retorna false quando a gravação deve ser tentada de novo no próximo flush.
+    private boolean write(HyperLogLog sketch, String table, String keyCondition, String insertSql, Object... key) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (jdbcTemplate.update(insertSql, append(key, sketch.toBytes())) > 0) {
+                    return;
+                }
+                List<byte[]> stored = jdbcTemplate.queryForList(
+                        "SELECT sketch FROM " + table + " WHERE " + keyCondition + " FOR UPDATE", byte[].class, key);
+                HyperLogLog merged = HyperLogLog.fromBytes(stored.get(0));
+                merged.merge(sketch);
+                jdbcTemplate.update("UPDATE " + table + " SET sketch = ? WHERE " + keyCondition, prepend(merged.toBytes(), key));
+            });
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            // Documento ou localização removidos: o sketch é descartado
+            log.warn("Sketch de leitores descartado em {}: {}", table, e.getMostSpecificCause().getMessage());
+            return true;
+        } catch (DataAccessException e) {
+            log.warn("Falha ao gravar sketch de leitores em {}: {}", table, e.getMessage());
+            return false;
+        } catch (RuntimeException e) {
+            // Ex.: sketch gravado ilegível em HyperLogLog.fromBytes; o sketch pendente é preservado
+            log.error("Erro ao combinar sketch de leitores em {}", table, e);
+            return false;
+        }
+    }
+
+    private static HyperLogLog union(HyperLogLog a, HyperLogLog b) {
+        a.merge(b);
+        return a;
+    }
+
+    public UniqueReadersDTO countDocumentReaders(Long documentId, LocalDate from, LocalDate to) {
+        HyperLogLog total = new HyperLogLog();
+        Map<Long, HyperLogLog> byLocation = new TreeMap<>();
+        jdbcTemplate.query("SELECT location_id, sketch FROM document_reader_sketches " +
+                        "WHERE document_id = ? AND day BETWEEN ? AND ?",
+                rs -> {
+                    HyperLogLog sketch = HyperLogLog.fromBytes(rs.getBytes("sketch"));
+                    total.merge(sketch);
+                    long locationId = rs.getLong("location_id");
+                    if (locationId != NO_LOCATION) {
+                        byLocation.computeIfAbsent(locationId, k -> new HyperLogLog()).merge(sketch);
+                    }
+                },
+                documentId, Date.valueOf(from), Date.valueOf(to));
+
+        Map<Long, Long> counts = new TreeMap<>();
+        byLocation.forEach((locationId, sketch) -> counts.put(locationId, sketch.estimate()));
+        return new UniqueReadersDTO(documentId, null, from, to, total.estimate(), counts);
+    }
+
+    public UniqueReadersDTO countLocationReaders(Long locationId, LocalDate from, LocalDate to) {
+        HyperLogLog total = new HyperLogLog();
+        jdbcTemplate.query("SELECT sketch FROM location_reader_sketches WHERE location_id = ? AND day BETWEEN ? AND ?",
+                rs -> {
+                    total.merge(HyperLogLog.fromBytes(rs.getBytes("sketch")));
+                },
+                locationId, Date.valueOf(from), Date.valueOf(to));
+        return new UniqueReadersDTO(null, locationId, from, to, total.estimate(), null);
+    }
+
+    @Scheduled(cron = "${app.reader-sketches.cleanup-cron:0 15 4 * * *}")
+    public void removeExpired() {
+        Date cutoff = Date.valueOf(LocalDate.now().minusDays(retentionDays));
+        try {
+            int removed = jdbcTemplate.update("DELETE FROM document_reader_sketches WHERE day < ?", cutoff)
+                    + jdbcTemplate.update("DELETE FROM location_reader_sketches WHERE day < ?", cutoff);
+            if (removed > 0) {
+                log.info("{} sketches de leitores anteriores a {} removidos", removed, cutoff);
+            }
+        } catch (DataAccessException e) {
+            log.error("Falha ao remover sketches de leitores antigos", e);
+        }
+    }
+
+    private static Object[] append(Object[] values, Object last) {
+        Object[] result = new Object[values.length + 1];
+        System.arraycopy(values, 0, result, 0, values.length);
+        result[values.length] = last;
+        return result;
+    }
+
+    private static Object[] prepend(Object first, Object[] values) {
+        Object[] result = new Object[values.length + 1];
+        result[0] = first;
+        System.arraycopy(values, 0, result, 1, values.length);
+        return result;
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static final class DocumentDay {
+        private final long documentId;
+        private final long locationId;
+        private final LocalDate day;
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static final class LocationDay {
+        private final long locationId;
+        private final LocalDate day;
+    }
+}
@@ -0,0 +1,308 @@
+package com.gestaoformativa.service;
+
+import com.gestaoformativa.repository.DocumentReadingProgressRepositoryImpl;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Buffer write-behind do progresso de leitura. O leitor envia o progresso a cada poucos segundos;
+// aqui guardamos apenas o estado mais recente de cada (usuário, documento) e gravamos em lote,
+// periodicamente e no desligamento. O progresso só aumenta e as datas de conclusão são preservadas,
+// tanto na combinação em memória quanto no upsert.
+@Slf4j
+@Service
+public class ReadingProgressBuffer {
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO document_reading_progress (user_id, document_id, progress_percentage, completed, " +
+            "first_view_date, last_view_date, completed_date, user_notes) VALUES (?, ?, ?, ?, ?, ?, ?, ?) " +
+            DocumentReadingProgressRepositoryImpl.ON_CONFLICT_MERGE;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxPending;
+
+    private final ConcurrentHashMap<ProgressKey, PendingProgress> pending = new ConcurrentHashMap<>();
+    // Serializa as gravações, e também a remoção de entradas durante um reset
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final Counter received;
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter failures;
+    private final Timer flushTimer;
+
+    public ReadingProgressBuffer(JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.reading-progress.write-behind.enabled:false}") boolean enabled,
+                                 @Value("${app.reading-progress.write-behind.batch-size:500}") int batchSize,
+                                 @Value("${app.reading-progress.write-behind.max-pending:100000}") int maxPending) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+
+        this.received = Counter.builder("reading.progress.buffer.updates")
+                .description("Atualizações de progresso recebidas pelo buffer")
+                .register(meterRegistry);
+        this.written = Counter.builder("reading.progress.buffer.rows")
+                .description("Linhas de progresso gravadas no banco")
+                .tag("result", "written")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("reading.progress.buffer.rows")
+                .description("Linhas de progresso descartadas (usuário ou documento removido)")
+                .tag("result", "dropped")
+                .register(meterRegistry);
+        this.failures = Counter.builder("reading.progress.buffer.flush.failures")
+                .description("Gravações em lote que falharam e voltaram para o buffer")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("reading.progress.buffer.flush")
+                .description("Tempo de gravação do buffer de progresso")
+                .register(meterRegistry);
+        Gauge.builder("reading.progress.buffer.pending", pending, Map::size)
+                .description("Pares (usuário, documento) aguardando gravação")
+                .register(meterRegistry);
+        Gauge.builder("reading.progress.buffer.oldest.seconds", this, ReadingProgressBuffer::oldestPendingSeconds)
+                .description("Idade da atualização mais antiga ainda não gravada")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Registra o progresso e devolve o estado combinado do par (ainda não gravado)
+    public PendingProgress record(Long userId, Long documentId, int progressPercentage, String userNotes) {
+        PendingProgress update = PendingProgress.of(progressPercentage, userNotes, LocalDateTime.now());
+        PendingProgress merged = pending.merge(new ProgressKey(userId, documentId), update, PendingProgress::merge);
+        received.increment();
+
+        // Se o banco ficou indisponível por muito tempo, a requisição ajuda a esvaziar o buffer
+        if (pending.size() >= maxPending && flushLock.tryLock()) {
+            try {
+                flushTimer.record(this::flushPending);
+            } finally {
+                flushLock.unlock();
+            }
+        }
+        return merged;
+    }
+
+    public Optional<PendingProgress> get(Long userId, Long documentId) {
+        return Optional.ofNullable(pending.get(new ProgressKey(userId, documentId)));
+    }
+
+    // Descarta o progresso pendente; aguarda uma gravação em andamento para que ela
+    // não recrie a linha depois do reset
+    public void discard(Long userId, Long documentId) {
+        flushLock.lock();
+        try {
+            pending.remove(new ProgressKey(userId, documentId));
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.reading-progress.write-behind.flush-interval-ms:5000}",
+            initialDelayString = "${app.reading-progress.write-behind.flush-interval-ms:5000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            flushTimer.record(this::flushPending);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!pending.isEmpty()) {
+            log.info("Gravando {} progressos de leitura pendentes antes de encerrar", pending.size());
+            flush();
+        }
+    }
+
+    private void flushPending() {
+        List<Map.Entry<ProgressKey, PendingProgress>> batch = new ArrayList<>();
+        for (ProgressKey key : pending.keySet()) {
+            PendingProgress progress = pending.remove(key);
+            if (progress != null) {
+                batch.add(Map.entry(key, progress));
+            }
+            if (batch.size() >= batchSize) {
+                if (!write(batch)) {
+                    return;
+                }
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    // Grava um lote em uma transação. Em caso de falha as entradas voltam para o buffer,
+    // combinadas com o que chegou nesse meio tempo
+    private boolean write(List<Map.Entry<ProgressKey, PendingProgress>> batch) {
+        // Ordem fixa evita deadlock entre instâncias gravando os mesmos pares. O documento vem primeiro:
+        // o trigger trava a linha de document_reading_stats de cada documento, na mesma ordem usada
+        // por upsertProgressBatch (por document_id)
+        batch.sort(Comparator.comparing((Map.Entry<ProgressKey, PendingProgress> e) -> e.getKey().getDocumentId())
+                .thenComparing(e -> e.getKey().getUserId()));
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(UPSERT_SQL, batch, batch.size(), this::bind));
+            written.increment(batch.size());
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            // Algum par referencia um usuário ou documento removido: grava linha a linha e descarta as inválidas
+            return writeIndividually(batch);
+        } catch (DataAccessException e) {
+            requeue(batch);
+            failures.increment();
+            log.error("Falha ao gravar {} progressos de leitura; serão tentados novamente", batch.size(), e);
+            return false;
+        }
+    }
+
+    private boolean writeIndividually(List<Map.Entry<ProgressKey, PendingProgress>> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            Map.Entry<ProgressKey, PendingProgress> entry = batch.get(i);
+            try {
+                jdbcTemplate.update(UPSERT_SQL, ps -> bind(ps, entry));
+                written.increment();
+            } catch (DataIntegrityViolationException e) {
+                dropped.increment();
+                log.warn("Progresso de leitura descartado para usuário {} e documento {}: {}",
+                        entry.getKey().getUserId(), entry.getKey().getDocumentId(), e.getMostSpecificCause().getMessage());
+            } catch (DataAccessException e) {
+                requeue(batch.subList(i, batch.size()));
+                failures.increment();
+                log.error("Falha ao gravar progressos de leitura; serão tentados novamente", e);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void requeue(List<Map.Entry<ProgressKey, PendingProgress>> entries) {
+        // As entradas devolvidas são mais antigas que as que chegaram durante a tentativa
+        entries.forEach(entry -> pending.merge(entry.getKey(), entry.getValue(),
+                (current, requeued) -> requeued.merge(current)));
+    }
+
+    private void bind(PreparedStatement ps, Map.Entry<ProgressKey, PendingProgress> entry) throws SQLException {
+        PendingProgress progress = entry.getValue();
+        ps.setLong(1, entry.getKey().getUserId());
+        ps.setLong(2, entry.getKey().getDocumentId());
+        ps.setInt(3, progress.getProgressPercentage());
+        ps.setBoolean(4, progress.isCompleted());
+        ps.setTimestamp(5, Timestamp.valueOf(progress.getFirstViewDate()));
+        ps.setTimestamp(6, Timestamp.valueOf(progress.getLastViewDate()));
+        if (progress.getCompletedDate() != null) {
+            ps.setTimestamp(7, Timestamp.valueOf(progress.getCompletedDate()));
+        } else {
+            ps.setNull(7, Types.TIMESTAMP);
+        }
+        if (progress.getUserNotes() != null) {
+            ps.setString(8, progress.getUserNotes());
+        } else {
+            ps.setNull(8, Types.VARCHAR);
+        }
+    }
+
+    private double oldestPendingSeconds() {
+        LocalDateTime now = LocalDateTime.now();
+        return pending.values().stream()
+                .map(PendingProgress::getFirstViewDate)
+                .min(Comparator.naturalOrder())
+                .map(oldest -> Duration.between(oldest, now).toMillis() / 1000.0)
+                .orElse(0.0);
+    }
+
+    @Getter
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static final class ProgressKey {
+        private final long userId;
+        private final long documentId;
+    }
+
+    // Estado combinado das atualizações de um par desde a última gravação
+    @Getter
+    @AllArgsConstructor
+    public static final class PendingProgress {
+        private final int progressPercentage;
+        private final String userNotes;
+        private final LocalDateTime firstViewDate;
+        private final LocalDateTime lastViewDate;
+        private final LocalDateTime completedDate;
+
+        static PendingProgress of(int progressPercentage, String userNotes, LocalDateTime now) {
+            return new PendingProgress(progressPercentage, userNotes, now, now, progressPercentage >= 100 ? now : null);
+        }
+
+        public boolean isCompleted() {
+            return completedDate != null;
+        }
+
+        // Combina o estado anterior com uma atualização mais recente
+        PendingProgress merge(PendingProgress newer) {
+            return new PendingProgress(
+                    Math.max(progressPercentage, newer.progressPercentage),
+                    newer.userNotes != null ? newer.userNotes : userNotes,
+                    earliest(firstViewDate, newer.firstViewDate),
+                    latest(lastViewDate, newer.lastViewDate),
+                    earliest(completedDate, newer.completedDate));
+        }
+
+        private static LocalDateTime earliest(LocalDateTime a, LocalDateTime b) {
+            if (a == null) {
+                return b;
+            }
+            return b == null || a.isBefore(b) ? a : b;
+        }
+
+        private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+            if (a == null) {
+                return b;
+            }
+            return b == null || a.isAfter(b) ? a : b;
+        }
+    }
+}
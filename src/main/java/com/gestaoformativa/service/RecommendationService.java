@@ -0,0 +1,450 @@
+package com.gestaoformativa.service;
+
+import com.gestaoformativa.model.DocumentAccessProfile;
+import com.gestaoformativa.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Listas de recomendação pré-calculadas por usuário: documentos acessíveis e ainda não lidos,
+// ordenados por etapa de vida, localização, co-leitura e popularidade.
+// A lista é calculada no primeiro acesso e atualizada de forma incremental: o documento lido sai
+// da lista na hora, uma conclusão agenda o recálculo do usuário (a co-leitura mudou) e documentos
+// publicados ou com novo público são inseridos nas listas em que entram.
+// As listas ficam na memória de cada instância, limitadas aos usuários mais recentes.
+@Slf4j
+@Service
+public class RecommendationService {
+
+    private static final double STAGE_WEIGHT = 3.0;
+    private static final double LOCATION_WEIGHT = 2.0;
+    private static final double CO_READING_WEIGHT = 4.0;
+    private static final double POPULARITY_WEIGHT = 1.0;
+
+    // Documentos lidos mais recentemente pelo usuário e leitores por documento usados na co-leitura
+    private static final int SEED_DOCUMENTS = 20;
+    private static final int READERS_PER_SEED = 200;
+    private static final int CO_READING_CANDIDATES = 500;
+
+    private static final String CO_READING_SQL =
+            "SELECT other.document_id, COUNT(DISTINCT r.user_id) AS co_readers " +
+            "FROM (SELECT document_id FROM document_reading_progress WHERE user_id = ? " +
+            "      ORDER BY last_view_date DESC NULLS LAST LIMIT " + SEED_DOCUMENTS + ") seed " +
+            "CROSS JOIN LATERAL (SELECT user_id FROM document_reading_progress " +
+            "      WHERE document_id = seed.document_id AND user_id <> ? " +
+            "      ORDER BY last_view_date DESC NULLS LAST LIMIT " + READERS_PER_SEED + ") r " +
+            "JOIN document_reading_progress other ON other.user_id = r.user_id " +
+            "GROUP BY other.document_id ORDER BY co_readers DESC LIMIT " + CO_READING_CANDIDATES;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DocumentAccessIndex accessIndex;
+    private final boolean enabled;
+    private final int listSize;
+    private final long maxAgeMillis;
+
+    private final Map<Long, UserRecommendations> lists;
+    private final Set<Long> staleUsers = ConcurrentHashMap.newKeySet();
+    private final Queue<Long> publishedDocuments = new ConcurrentLinkedQueue<>();
+
+    private volatile Map<Long, Integer> readerCounts = Map.of();
+    private volatile double maxPopularity = 0;
+    private volatile long popularityLoadedAt = 0;
+
+    private final Counter cacheHits;
+    private final Counter computed;
+    private final Counter fallbacks;
+    private final Timer computeTimer;
+
+    public RecommendationService(JdbcTemplate jdbcTemplate,
+                                 DocumentAccessIndex accessIndex,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.recommendations.enabled:true}") boolean enabled,
+                                 @Value("${app.recommendations.list-size:50}") int listSize,
+                                 @Value("${app.recommendations.max-users:10000}") int maxUsers,
+                                 @Value("${app.recommendations.max-age-ms:3600000}") long maxAgeMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.accessIndex = accessIndex;
+        this.enabled = enabled;
+        this.listSize = listSize;
+        this.maxAgeMillis = maxAgeMillis;
+        this.lists = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, UserRecommendations> eldest) {
+                return size() > maxUsers;
+            }
+        });
+
+        this.cacheHits = Counter.builder("recommendations.lookups")
+                .description("Recomendações servidas pela lista pré-calculada")
+                .tag("result", "cache")
+                .register(meterRegistry);
+        this.computed = Counter.builder("recommendations.lookups")
+                .description("Recomendações que precisaram calcular a lista do usuário")
+                .tag("result", "computed")
+                .register(meterRegistry);
+        this.fallbacks = Counter.builder("recommendations.lookups")
+                .description("Recomendações respondidas pela consulta no banco")
+                .tag("result", "fallback")
+                .register(meterRegistry);
+        this.computeTimer = Timer.builder("recommendations.compute")
+                .description("Tempo de cálculo da lista de recomendações de um usuário")
+                .register(meterRegistry);
+        Gauge.builder("recommendations.users", lists, Map::size)
+                .description("Usuários com lista de recomendações em memória")
+                .register(meterRegistry);
+    }
+
+    // Ids recomendados na janela pedida; null se a lista não puder responder (índice de acesso
+    // indisponível). Se a janela passar do fim de uma lista incompleta, a página indica de onde
+    // a consulta no banco continua, sem repetir os documentos da lista.
+    public RecommendationPage recommend(DocumentAccessProfile profile, int offset, int limit) {
+        if (!enabled || !accessIndex.isReady()) {
+            fallbacks.increment();
+            return null;
+        }
+
+        UserRecommendations recommendations = lists.get(profile.getUserId());
+        // Etapa, localização ou papel diferentes mudam o público: a lista é recalculada
+        if (recommendations == null || !recommendations.profile.equals(profile)) {
+            try {
+                recommendations = compute(profile);
+            } catch (DataAccessException e) {
+                log.error("Falha ao calcular as recomendações do usuário {}; usando a consulta no banco", profile.getUserId(), e);
+                recommendations = null;
+            }
+            if (recommendations == null) {
+                fallbacks.increment();
+                return null;
+            }
+            lists.put(profile.getUserId(), recommendations);
+            computed.increment();
+        } else {
+            cacheHits.increment();
+        }
+
+        // Acesso revogado ou documento removido depois do cálculo
+        List<Long> ids = new ArrayList<>(Math.min(limit, recommendations.ids.length));
+        int accessible = 0;
+        for (long id : recommendations.ids) {
+            if (!Boolean.TRUE.equals(accessIndex.canAccess(profile, id))) {
+                continue;
+            }
+            if (accessible++ < offset) {
+                continue;
+            }
+            ids.add(id);
+            if (ids.size() == limit) {
+                return new RecommendationPage(ids, null, 0);
+            }
+        }
+
+        if (!recommendations.complete) {
+            fallbacks.increment();
+            List<Long> listed = Arrays.stream(recommendations.ids).boxed().toList();
+            return new RecommendationPage(ids, listed, Math.max(0, offset - accessible));
+        }
+        return new RecommendationPage(ids, null, 0);
+    }
+
+    // Leitura registrada: o documento deixa de ser recomendado; a conclusão muda a co-leitura
+    public void documentRead(Long userId, Long documentId, boolean completed) {
+        if (!enabled) {
+            return;
+        }
+        lists.computeIfPresent(userId, (id, recommendations) -> recommendations.without(documentId));
+        if (completed) {
+            staleUsers.add(userId);
+        }
+    }
+
+    // Progresso reiniciado: o documento volta a ser candidato
+    public void progressReset(Long userId) {
+        if (enabled) {
+            staleUsers.add(userId);
+        }
+    }
+
+    // Etapa, localização ou papel alterados
+    public void userChanged(Long userId) {
+        lists.remove(userId);
+    }
+
+    // Documento criado ou com novo público; inserido nas listas na próxima atualização
+    public void documentPublished(Long documentId) {
+        if (enabled) {
+            publishedDocuments.add(documentId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.recommendations.refresh-interval-ms:10000}",
+            initialDelayString = "${app.recommendations.refresh-interval-ms:10000}")
+    public void refresh() {
+        if (!enabled || !accessIndex.isReady()) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            if (now - popularityLoadedAt > maxAgeMillis) {
+                loadPopularity();
+            }
+
+            Set<Long> documents = new HashSet<>();
+            for (Long documentId = publishedDocuments.poll(); documentId != null; documentId = publishedDocuments.poll()) {
+                documents.add(documentId);
+            }
+            for (Long documentId : documents) {
+                insertPublished(documentId);
+            }
+
+            List<Long> users;
+            synchronized (lists) {
+                users = new ArrayList<>(lists.keySet());
+            }
+            for (Long userId : users) {
+                UserRecommendations current = lists.get(userId);
+                boolean stale = staleUsers.remove(userId);
+                if (current != null && (stale || now - current.computedAt > maxAgeMillis)) {
+                    UserRecommendations updated = compute(current.profile);
+                    if (updated != null) {
+                        lists.replace(userId, updated);
+                    }
+                }
+            }
+            // Usuários marcados que não têm lista em memória
+            staleUsers.removeIf(userId -> !lists.containsKey(userId));
+        } catch (DataAccessException e) {
+            log.error("Falha ao atualizar as listas de recomendação", e);
+        }
+    }
+
+    private UserRecommendations compute(DocumentAccessProfile profile) {
+        if (popularityLoadedAt == 0) {
+            loadPopularity();
+        }
+        return computeTimer.record(() -> {
+            BitSet candidates = accessIndex.visibleDocumentIds(profile);
+            if (candidates == null) {
+                return null;
+            }
+            jdbcTemplate.query("SELECT document_id FROM document_reading_progress WHERE user_id = ?",
+                    rs -> { candidates.clear(Math.toIntExact(rs.getLong(1))); },
+                    profile.getUserId());
+
+            Map<Long, Integer> coReaders = new HashMap<>();
+            jdbcTemplate.query(CO_READING_SQL,
+                    rs -> { coReaders.put(rs.getLong(1), rs.getInt(2)); },
+                    profile.getUserId(), profile.getUserId());
+            int maxCoReaders = coReaders.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+
+            Scorer scorer = new Scorer(profile, coReaders, maxCoReaders);
+            PriorityQueue<ScoredDocument> top = new PriorityQueue<>(listSize + 1);
+            for (int doc = candidates.nextSetBit(0); doc >= 0; doc = candidates.nextSetBit(doc + 1)) {
+                top.add(new ScoredDocument(doc, scorer.score(doc)));
+                if (top.size() > listSize) {
+                    top.poll();
+                }
+            }
+
+            ScoredDocument[] ranked = top.toArray(new ScoredDocument[0]);
+            Arrays.sort(ranked, Collections.reverseOrder());
+            long[] ids = new long[ranked.length];
+            double[] scores = new double[ranked.length];
+            for (int i = 0; i < ranked.length; i++) {
+                ids[i] = ranked[i].documentId;
+                scores[i] = ranked[i].score;
+            }
+            return new UserRecommendations(profile, ids, scores, candidates.cardinality() <= listSize,
+                    System.currentTimeMillis());
+        });
+    }
+
+    // Um documento novo ainda não tem co-leitores: a pontuação vem do público e da popularidade
+    private void insertPublished(Long documentId) {
+        Set<User.LifeStage> stages = new HashSet<>();
+        jdbcTemplate.query("SELECT life_stage FROM document_allowed_stages WHERE document_id = ?",
+                rs -> { stages.add(User.LifeStage.valueOf(rs.getString(1))); }, documentId);
+        Set<Long> locations = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT location_id FROM document_allowed_locations WHERE document_id = ?", Long.class, documentId));
+        Set<Long> readers = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT user_id FROM document_reading_progress WHERE document_id = ?", Long.class, documentId));
+
+        List<Long> users;
+        synchronized (lists) {
+            users = new ArrayList<>(lists.keySet());
+        }
+        for (Long userId : users) {
+            lists.computeIfPresent(userId, (id, recommendations) -> {
+                DocumentAccessProfile profile = recommendations.profile;
+                if (readers.contains(userId) || !Boolean.TRUE.equals(accessIndex.canAccess(profile, documentId))) {
+                    return recommendations;
+                }
+                double score = popularity(documentId)
+                        + (profile.getLifeStage() != null && stages.contains(profile.getLifeStage()) ? STAGE_WEIGHT : 0)
+                        + (profile.getLocationId() != null && locations.contains(profile.getLocationId()) ? LOCATION_WEIGHT : 0);
+                return recommendations.with(documentId, score, listSize);
+            });
+        }
+    }
+
+    private void loadPopularity() {
+        Map<Long, Integer> counts = new HashMap<>();
+        jdbcTemplate.query("SELECT document_id, reader_count FROM document_reading_stats WHERE reader_count > 0",
+                rs -> { counts.put(rs.getLong(1), rs.getInt(2)); });
+        readerCounts = counts;
+        maxPopularity = Math.log1p(counts.values().stream().mapToInt(Integer::intValue).max().orElse(0));
+        popularityLoadedAt = System.currentTimeMillis();
+    }
+
+    private double popularity(long documentId) {
+        Integer readers = readerCounts.get(documentId);
+        return readers == null || maxPopularity == 0 ? 0 : POPULARITY_WEIGHT * Math.log1p(readers) / maxPopularity;
+    }
+
+    private final class Scorer {
+        private final BitSet stage;
+        private final BitSet location;
+        private final Map<Long, Integer> coReaders;
+        private final int maxCoReaders;
+
+        Scorer(DocumentAccessProfile profile, Map<Long, Integer> coReaders, int maxCoReaders) {
+            BitSet stageDocuments = profile.getLifeStage() != null ? accessIndex.documentsForStage(profile.getLifeStage()) : null;
+            BitSet locationDocuments = profile.getLocationId() != null ? accessIndex.documentsForLocation(profile.getLocationId()) : null;
+            this.stage = stageDocuments != null ? stageDocuments : new BitSet();
+            this.location = locationDocuments != null ? locationDocuments : new BitSet();
+            this.coReaders = coReaders;
+            this.maxCoReaders = maxCoReaders;
+        }
+
+        double score(int doc) {
+            double score = popularity(doc);
+            if (stage.get(doc)) {
+                score += STAGE_WEIGHT;
+            }
+            if (location.get(doc)) {
+                score += LOCATION_WEIGHT;
+            }
+            Integer readers = coReaders.get((long) doc);
+            if (readers != null && maxCoReaders > 0) {
+                score += CO_READING_WEIGHT * readers / maxCoReaders;
+            }
+            return score;
+        }
+    }
+
+    // Empates favorecem os documentos mais novos
+    private static final class ScoredDocument implements Comparable<ScoredDocument> {
+        private final long documentId;
+        private final double score;
+
+        ScoredDocument(long documentId, double score) {
+            this.documentId = documentId;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo(ScoredDocument other) {
+            int byScore = Double.compare(score, other.score);
+            return byScore != 0 ? byScore : Long.compare(documentId, other.documentId);
+        }
+    }
+
+    // Página servida pela lista. Com "continueAfter" preenchido a lista acabou antes da página:
+    // o restante vem da consulta no banco, excluindo esses ids e a partir de "continueOffset"
+    @Getter
+    @AllArgsConstructor
+    public static class RecommendationPage {
+        private final List<Long> ids;
+        private final List<Long> continueAfter;
+        private final int continueOffset;
+    }
+
+    // Lista imutável; as alterações incrementais geram uma nova instância
+    private static final class UserRecommendations {
+        private final DocumentAccessProfile profile;
+        private final long[] ids;
+        private final double[] scores;
+        // Todos os candidatos couberam na lista (não há mais nada além dela)
+        private final boolean complete;
+        private final long computedAt;
+
+        UserRecommendations(DocumentAccessProfile profile, long[] ids, double[] scores, boolean complete, long computedAt) {
+            this.profile = profile;
+            this.ids = ids;
+            this.scores = scores;
+            this.complete = complete;
+            this.computedAt = computedAt;
+        }
+
+        UserRecommendations without(long documentId) {
+            int index = indexOf(documentId);
+            if (index < 0) {
+                return this;
+            }
+            long[] newIds = new long[ids.length - 1];
+            double[] newScores = new double[scores.length - 1];
+            System.arraycopy(ids, 0, newIds, 0, index);
+            System.arraycopy(ids, index + 1, newIds, index, ids.length - index - 1);
+            System.arraycopy(scores, 0, newScores, 0, index);
+            System.arraycopy(scores, index + 1, newScores, index, scores.length - index - 1);
+            return new UserRecommendations(profile, newIds, newScores, complete, computedAt);
+        }
+
+        UserRecommendations with(long documentId, double score, int maxSize) {
+            UserRecommendations base = without(documentId);
+            int position = 0;
+            while (position < base.ids.length && (base.scores[position] > score
+                    || (base.scores[position] == score && base.ids[position] > documentId))) {
+                position++;
+            }
+            if (position >= maxSize) {
+                return base;
+            }
+
+            int size = Math.min(base.ids.length + 1, maxSize);
+            long[] newIds = new long[size];
+            double[] newScores = new double[size];
+            System.arraycopy(base.ids, 0, newIds, 0, position);
+            System.arraycopy(base.scores, 0, newScores, 0, position);
+            newIds[position] = documentId;
+            newScores[position] = score;
+            System.arraycopy(base.ids, position, newIds, position + 1, size - position - 1);
+            System.arraycopy(base.scores, position, newScores, position + 1, size - position - 1);
+            // Se o último documento saiu da lista, ela deixa de conter todos os candidatos
+            boolean stillComplete = base.complete && base.ids.length + 1 <= maxSize;
+            return new UserRecommendations(profile, newIds, newScores, stillComplete, computedAt);
+        }
+
+        private int indexOf(long documentId) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == documentId) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.gestaoformativa.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+// Buckets no Redis, compartilhados entre as instâncias. O mesmo GCRA do backend local roda
+// em um script Lua (atômico no servidor) usando o relógio do Redis, então instâncias com
+// relógios diferentes veem o mesmo bucket. A chave expira quando o bucket volta a ficar cheio.
+@Service
+public class RedisRateLimitBackend implements RateLimitBackend {
+
+    private static final DefaultRedisScript<Long> GCRA_SCRIPT = new DefaultRedisScript<>(
+            "local interval = tonumber(ARGV[1]) " +
+            "local tolerance = tonumber(ARGV[2]) " +
+            "local time = redis.call('TIME') " +
+            "local now = tonumber(time[1]) * 1000000 + tonumber(time[2]) " +
+            "local tat = tonumber(redis.call('GET', KEYS[1])) " +
+            "if tat == nil or tat < now then tat = now end " +
+            "local nextTat = tat + interval " +
+            "local wait = nextTat - tolerance - now " +
+            "if wait > 0 then return wait end " +
+            "redis.call('SET', KEYS[1], string.format('%d', nextTat), 'PX', math.ceil((nextTat - now) / 1000) + 1) " +
+            "return 0",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final String keyPrefix;
+
+    public RedisRateLimitBackend(StringRedisTemplate redisTemplate,
+                                 @Value("${app.rate-limit.redis.key-prefix:rate-limit:}") String keyPrefix) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+    }
+
+    @Override
+    public long tryConsume(String key, int capacity, long intervalMicros) {
+        Long wait = redisTemplate.execute(GCRA_SCRIPT, List.of(keyPrefix + key),
+                Long.toString(intervalMicros), Long.toString(capacity * intervalMicros));
+        return wait != null ? wait : 0;
+    }
+}
@@ -0,0 +1,174 @@
+package com.gestaoformativa.service;
+
+import com.gestaoformativa.model.RolePermissions;
+import com.gestaoformativa.model.TokenPrincipal;
+import com.gestaoformativa.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+// Refresh tokens opacos (32 bytes aleatórios) guardados só pelo SHA-256, com rotação:
+// cada renovação consome o token e emite o próximo da mesma família. Um token já usado
+// que volte a ser apresentado indica vazamento, e a família inteira é revogada.
+// A renovação não verifica senha (BCrypt) nem carrega a entidade do usuário: uma consulta
+// traz as colunas necessárias para as claims do novo token de acesso.
+@Slf4j
+@Service
+public class RefreshTokenService {
+
+    private static final String CONSUME_SQL =
+            "UPDATE refresh_tokens SET used_at = CURRENT_TIMESTAMP " +
+            "WHERE token_hash = ? AND used_at IS NULL AND NOT revoked AND expires_at > CURRENT_TIMESTAMP " +
+            "RETURNING user_id, family_id";
+
+    private static final String PRINCIPAL_SQL =
+            "SELECT u.id, u.username, u.name, u.tenant_id, u.role_id, r.name, r.can_manage_users, " +
+            "r.can_manage_roles, r.can_manage_stages, r.can_manage_documents, u.life_stage, " +
+            "u.mission_location_id, u.security_version " +
+            "FROM users u LEFT JOIN roles r ON r.id = u.role_id " +
+            "WHERE u.id = ? AND u.is_enabled AND u.is_account_non_locked AND u.is_account_non_expired";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long ttlMillis;
+    private final SecureRandom random = new SecureRandom();
+
+    private final Counter rotated;
+    private final Counter reused;
+    private final Counter rejected;
+
+    public RefreshTokenService(JdbcTemplate jdbcTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.jwt.refresh.ttl-ms:1209600000}") long ttlMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttlMillis = ttlMillis;
+
+        this.rotated = Counter.builder("jwt.refresh")
+                .description("Refresh tokens renovados")
+                .tag("result", "rotated")
+                .register(meterRegistry);
+        this.reused = Counter.builder("jwt.refresh")
+                .description("Refresh tokens reutilizados (família revogada)")
+                .tag("result", "reused")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("jwt.refresh")
+                .description("Refresh tokens inválidos, expirados ou de usuário desativado")
+                .tag("result", "rejected")
+                .register(meterRegistry);
+    }
+
+    // Abre uma nova família no login
+    public String issue(Long userId) {
+        return insert(userId, UUID.randomUUID());
+    }
+
+    // Consome o refresh token e emite o próximo; null se o token não puder ser renovado
+    @Transactional
+    public Rotation rotate(String refreshToken) {
+        byte[] hash = hash(refreshToken);
+        List<Object[]> consumed = jdbcTemplate.query(CONSUME_SQL,
+                (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getObject(2, UUID.class)}, hash);
+
+        if (consumed.isEmpty()) {
+            // Token conhecido mas já usado: alguém reapresentou um token rotacionado
+            List<UUID> families = jdbcTemplate.queryForList(
+                    "SELECT family_id FROM refresh_tokens WHERE token_hash = ? AND used_at IS NOT NULL AND NOT revoked",
+                    UUID.class, hash);
+            if (!families.isEmpty()) {
+                revokeFamily(families.get(0));
+                reused.increment();
+                log.warn("Refresh token reutilizado; família {} revogada", families.get(0));
+            } else {
+                rejected.increment();
+            }
+            return null;
+        }
+
+        Long userId = (Long) consumed.get(0)[0];
+        UUID familyId = (UUID) consumed.get(0)[1];
+        List<Rotation> rows = jdbcTemplate.query(PRINCIPAL_SQL, (rs, rowNum) -> {
+            String stage = rs.getString(11);
+            RolePermissions permissions = RolePermissions.of(rs.getString(6),
+                    rs.getObject(7, Boolean.class), rs.getObject(8, Boolean.class),
+                    rs.getObject(9, Boolean.class), rs.getObject(10, Boolean.class));
+            TokenPrincipal principal = new TokenPrincipal(
+                    rs.getLong(1), rs.getString(2), rs.getObject(4, Long.class), rs.getObject(5, Long.class),
+                    permissions.getMask(), stage != null ? User.LifeStage.valueOf(stage) : null,
+                    rs.getObject(12, Long.class), rs.getInt(13));
+            return new Rotation(principal, rs.getString(3), rs.getString(6), null);
+        }, userId);
+
+        if (rows.isEmpty()) {
+            // Usuário desativado ou bloqueado: a família deixa de valer
+            revokeFamily(familyId);
+            rejected.increment();
+            return null;
+        }
+
+        rotated.increment();
+        Rotation rotation = rows.get(0);
+        return new Rotation(rotation.principal, rotation.name, rotation.roleName, insert(userId, familyId));
+    }
+
+    // Logout: revoga a família do token apresentado; false se o token não existir
+    public boolean revoke(String refreshToken) {
+        return jdbcTemplate.update("UPDATE refresh_tokens SET revoked = true WHERE family_id IN " +
+                "(SELECT family_id FROM refresh_tokens WHERE token_hash = ?)", hash(refreshToken)) > 0;
+    }
+
+    @Scheduled(cron = "${app.jwt.refresh.purge-cron:0 15 4 * * *}")
+    public void purgeExpired() {
+        try {
+            int deleted = jdbcTemplate.update("DELETE FROM refresh_tokens WHERE expires_at < CURRENT_TIMESTAMP");
+            log.debug("Refresh tokens expirados removidos: {}", deleted);
+        } catch (DataAccessException e) {
+            log.error("Falha ao remover refresh tokens expirados", e);
+        }
+    }
+
+    private void revokeFamily(UUID familyId) {
+        jdbcTemplate.update("UPDATE refresh_tokens SET revoked = true WHERE family_id = ?", familyId);
+    }
+
+    private String insert(Long userId, UUID familyId) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        jdbcTemplate.update("INSERT INTO refresh_tokens (token_hash, user_id, family_id, expires_at) VALUES (?, ?, ?, ?)",
+                hash(token), userId, familyId, new Timestamp(System.currentTimeMillis() + ttlMillis));
+        return token;
+    }
+
+    private static byte[] hash(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Rotation {
+        private final TokenPrincipal principal;
+        private final String name;
+        private final String roleName;
+        private final String refreshToken;
+    }
+}
@@ -14,6 +14,12 @@ public class RoleService {
     @Autowired
     private RoleRepository roleRepository;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private SecurityVersionService securityVersions;
+
     public List<Role> getAllRoles() {
         return roleRepository.findAll();
     }
@@ -51,7 +57,11 @@ public class RoleService {
         role.setCanManageStages(roleDetails.getCanManageStages());
         role.setCanManageDocuments(roleDetails.getCanManageDocuments());
 
-        return roleRepository.save(role);
+        Role saved = roleRepository.save(role);
+        // Tokens e usuários em cache carregam as permissões do papel
+        securityVersions.bumpRole(id);
+        principalCache.invalidateAll();
+        return saved;
     }
 
     public void deleteRole(Long id) {
@@ -62,5 +72,6 @@ public class RoleService {
         }
 
         roleRepository.delete(role);
+        principalCache.invalidateAll();
     }
 }
\ No newline at end of file
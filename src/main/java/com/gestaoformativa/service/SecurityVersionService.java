@@ -0,0 +1,116 @@
+package com.gestaoformativa.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Versão de segurança por usuário (users.security_version). Tokens com claims completas
+// carregam a versão da emissão; quando papel, etapa, localização ou situação do usuário mudam,
+// a versão é incrementada e os tokens anteriores deixam de ser aceitos.
+// As versões ficam em cache por um TTL curto: a mudança vale na hora nesta instância
+// e em até ttl-ms nas demais.
+@Service
+public class SecurityVersionService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long ttlMillis;
+    private final int maxSize;
+
+    private final Map<Long, CachedVersion> versions = new ConcurrentHashMap<>();
+
+    private final Counter rejected;
+
+    public SecurityVersionService(JdbcTemplate jdbcTemplate,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.jwt.security-version.ttl-ms:5000}") long ttlMillis,
+                                  @Value("${app.jwt.security-version.max-size:100000}") int maxSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttlMillis = ttlMillis;
+        this.maxSize = maxSize;
+
+        this.rejected = Counter.builder("jwt.security.version.rejected")
+                .description("Tokens recusados por versão de segurança desatualizada")
+                .register(meterRegistry);
+    }
+
+    // A versão do token ainda é a do usuário (usuário removido nunca é atual)
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        Integer current = currentVersion(userId);
+        if (current != null && current == tokenVersion) {
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    private Integer currentVersion(Long userId) {
+        long now = System.currentTimeMillis();
+        CachedVersion cached = versions.get(userId);
+        if (cached != null && cached.expiresAt > now) {
+            return cached.version;
+        }
+
+        List<Integer> rows = jdbcTemplate.queryForList(
+                "SELECT security_version FROM users WHERE id = ?", Integer.class, userId);
+        Integer version = rows.isEmpty() ? null : rows.get(0);
+        if (versions.size() >= maxSize) {
+            versions.values().removeIf(entry -> entry.expiresAt <= now);
+            if (versions.size() >= maxSize) {
+                versions.clear();
+            }
+        }
+        versions.put(userId, new CachedVersion(version, now + ttlMillis));
+        return version;
+    }
+
+    public void bump(Long userId) {
+        jdbcTemplate.update("UPDATE users SET security_version = security_version + 1 WHERE id = ?", userId);
+        evict(userId);
+    }
+
+    // Alterações no papel mudam as permissões de todos os seus usuários
+    public void bumpRole(Long roleId) {
+        jdbcTemplate.update("UPDATE users SET security_version = security_version + 1 WHERE role_id = ?", roleId);
+        evictAll();
+    }
+
+    // Usuário removido: sem versão em cache, a próxima consulta não encontra a linha
+    public void evict(Long userId) {
+        removeNowAndAfterCommit(() -> versions.remove(userId));
+    }
+
+    public void evictAll() {
+        removeNowAndAfterCommit(versions::clear);
+    }
+
+    // Remove agora e de novo após o commit, quando a nova versão fica visível
+    private void removeNowAndAfterCommit(Runnable removal) {
+        removal.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    removal.run();
+                }
+            });
+        }
+    }
+
+    private static final class CachedVersion {
+        private final Integer version;
+        private final long expiresAt;
+
+        CachedVersion(Integer version, long expiresAt) {
+            this.version = version;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.gestaoformativa.service;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+// Conjunto de ids de documentos em um int[] ordenado, para os índices por usuário, autor, papel e
+// localização: cada chave costuma ter poucos documentos espalhados por todo o intervalo de ids,
+// e um BitSet pagaria id/8 bytes mesmo com um único documento alto. Ocupa 4 bytes por elemento.
+// Não é thread-safe: o DocumentAccessIndex o acessa sob o seu lock.
+final class SortedIntSet {
+
+    private int[] values = new int[4];
+    private int size = 0;
+
+    void add(int value) {
+        // Inserções em ordem crescente (reconstrução do índice) são apenas um append
+        if (size == 0 || values[size - 1] < value) {
+            ensureCapacity(size + 1);
+            values[size++] = value;
+            return;
+        }
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index >= 0) {
+            return;
+        }
+        int position = -index - 1;
+        ensureCapacity(size + 1);
+        System.arraycopy(values, position, values, position + 1, size - position);
+        values[position] = value;
+        size++;
+    }
+
+    void remove(int value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index < 0) {
+            return;
+        }
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        // Devolve a memória de chaves que perderam a maior parte dos documentos
+        if (values.length > 16 && size < values.length / 4) {
+            values = Arrays.copyOf(values, Math.max(4, size * 2));
+        }
+    }
+
+    boolean contains(int value) {
+        return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void orInto(BitSet target) {
+        for (int i = 0; i < size; i++) {
+            target.set(values[i]);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > values.length) {
+            values = Arrays.copyOf(values, Math.max(capacity, values.length + (values.length >> 1)));
+        }
+    }
+}
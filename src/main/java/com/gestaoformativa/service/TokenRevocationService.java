@@ -0,0 +1,248 @@
+package com.gestaoformativa.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+// Lista de tokens JWT revogados (logout), identificados pela claim jti.
+// A tabela revoked_tokens é a fonte; cada instância mantém em memória o conjunto exato
+// (jti -> expiração) e um filtro de Bloom na frente dele. Um token não revogado, o caso
+// comum, é liberado com uma consulta ao filtro, sem I/O.
+// As instâncias se sincronizam por LISTEN/NOTIFY do PostgreSQL (canal token_revoked);
+// a cada conexão do listener (inclusive a primeira) o LISTEN vem antes da leitura da tabela,
+// de modo que nenhuma revogação se perde entre as duas.
+@Slf4j
+@Service
+public class TokenRevocationService {
+
+    private static final String CHANNEL = "token_revoked";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final boolean enabled;
+    private final int expectedTokens;
+    private final double falsePositiveRate;
+    private final int pollTimeoutMillis;
+    private final long reconnectDelayMillis;
+
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private volatile BloomFilter bloom;
+    private volatile int bloomCapacity;
+    // NOTIFY e LISTEN só existem no PostgreSQL
+    private volatile boolean postgres = false;
+    private volatile boolean running = false;
+    private Thread listener;
+    private final CountDownLatch initialLoad = new CountDownLatch(1);
+
+    private final Counter revokedHits;
+    private final Counter falsePositives;
+
+    public TokenRevocationService(JdbcTemplate jdbcTemplate,
+                                  DataSource dataSource,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.jwt.revocation.enabled:true}") boolean enabled,
+                                  @Value("${app.jwt.revocation.expected-tokens:100000}") int expectedTokens,
+                                  @Value("${app.jwt.revocation.false-positive-rate:0.001}") double falsePositiveRate,
+                                  @Value("${app.jwt.revocation.listen-poll-ms:5000}") int pollTimeoutMillis,
+                                  @Value("${app.jwt.revocation.reconnect-delay-ms:5000}") long reconnectDelayMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.enabled = enabled;
+        this.expectedTokens = expectedTokens;
+        this.falsePositiveRate = falsePositiveRate;
+        this.pollTimeoutMillis = pollTimeoutMillis;
+        this.reconnectDelayMillis = reconnectDelayMillis;
+        this.bloom = new BloomFilter(expectedTokens, falsePositiveRate);
+        this.bloomCapacity = expectedTokens;
+
+        this.revokedHits = Counter.builder("jwt.revocation.checks")
+                .description("Tokens recusados por estarem revogados")
+                .tag("result", "revoked")
+                .register(meterRegistry);
+        this.falsePositives = Counter.builder("jwt.revocation.checks")
+                .description("Falsos positivos do filtro de Bloom de tokens revogados")
+                .tag("result", "false-positive")
+                .register(meterRegistry);
+        Gauge.builder("jwt.revocation.size", revoked, Map::size)
+                .description("Tokens revogados ainda não expirados em memória")
+                .register(meterRegistry);
+    }
+
+    // A carga e o listener rodam em segundo plano e são repetidos até funcionar; a inicialização
+    // espera a primeira carga por até reconnect-delay-ms para não liberar tokens já revogados
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listen, "token-revocation-listener");
+        listener.setDaemon(true);
+        listener.start();
+        try {
+            if (!initialLoad.await(reconnectDelayMillis, TimeUnit.MILLISECONDS)) {
+                log.warn("Tokens revogados ainda não carregados; a carga continua em segundo plano");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isRevoked(String jti) {
+        if (!enabled || jti == null || !bloom.mightContain(jti)) {
+            return false;
+        }
+        Long expiresAt = revoked.get(jti);
+        if (expiresAt != null && expiresAt > System.currentTimeMillis()) {
+            revokedHits.increment();
+            return true;
+        }
+        falsePositives.increment();
+        return false;
+    }
+
+    // Revoga o token até a sua expiração; as outras instâncias recebem a revogação após o commit
+    public void revoke(String jti, Long userId, long expiresAtMillis) {
+        jdbcTemplate.update(
+                "INSERT INTO revoked_tokens (jti, user_id, expires_at) VALUES (?, ?, ?) ON CONFLICT (jti) DO NOTHING",
+                jti, userId, new Timestamp(expiresAtMillis));
+        if (postgres) {
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> {
+            }, CHANNEL, jti + ":" + expiresAtMillis);
+        }
+        add(jti, expiresAtMillis);
+    }
+
+    // Remove da tabela e da memória os tokens já expirados, reconstruindo o filtro
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.purge-interval-ms:3600000}",
+            initialDelayString = "${app.jwt.revocation.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int deleted = jdbcTemplate.update("DELETE FROM revoked_tokens WHERE expires_at < CURRENT_TIMESTAMP");
+            long now = System.currentTimeMillis();
+            revoked.values().removeIf(expiresAt -> expiresAt <= now);
+            rebuildBloom();
+            log.debug("Tokens revogados expirados removidos: {}", deleted);
+        } catch (DataAccessException e) {
+            log.error("Falha ao remover tokens revogados expirados", e);
+        }
+    }
+
+    public void reload() {
+        Map<String, Long> loaded = new HashMap<>();
+        jdbcTemplate.query("SELECT jti, expires_at FROM revoked_tokens WHERE expires_at > CURRENT_TIMESTAMP",
+                rs -> {
+                    loaded.put(rs.getString(1), rs.getTimestamp(2).getTime());
+                });
+        revoked.putAll(loaded);
+        rebuildBloom();
+        initialLoad.countDown();
+        log.info("Tokens revogados carregados: {}", revoked.size());
+    }
+
+    private void add(String jti, long expiresAtMillis) {
+        // O conjunto exato antes do filtro: quem vê o bit também encontra a entrada
+        revoked.put(jti, expiresAtMillis);
+        bloom.add(jti);
+        if (revoked.size() > bloomCapacity) {
+            rebuildBloom();
+        }
+    }
+
+    private synchronized void rebuildBloom() {
+        int capacity = Math.max(expectedTokens, revoked.size() * 2);
+        BloomFilter rebuilt = new BloomFilter(capacity, falsePositiveRate);
+        revoked.keySet().forEach(rebuilt::add);
+        // Revogações feitas durante a reconstrução entram nos dois filtros
+        bloom = rebuilt;
+        bloomCapacity = capacity;
+        revoked.keySet().forEach(rebuilt::add);
+    }
+
+    // Conexão dedicada (fora das transações) aguardando notificações. Fora do PostgreSQL
+    // só faz a carga inicial. Falhas (inclusive da primeira carga) são repetidas após reconnect-delay-ms.
+    private void listen() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                if (!connection.isWrapperFor(PGConnection.class)) {
+                    reload();
+                    return;
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                postgres = true;
+                // Revogações feitas antes do LISTEN (ou enquanto o listener estava desconectado) vêm da tabela
+                reload();
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollTimeoutMillis);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        apply(notification.getParameter());
+                    }
+                }
+            } catch (SQLException | DataAccessException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Falha no listener de tokens revogados; nova tentativa em {} ms: {}",
+                        reconnectDelayMillis, e.getMessage());
+                try {
+                    Thread.sleep(reconnectDelayMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void apply(String payload) {
+        int separator = payload.lastIndexOf(':');
+        if (separator <= 0) {
+            return;
+        }
+        try {
+            add(payload.substring(0, separator), Long.parseLong(payload.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            log.warn("Notificação de token revogado inválida: {}", payload);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package com.gestaoformativa.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongPredicate;
+
+// Documentos em alta por tenant, mantidos em memória a partir das leituras.
+// Cada janela (hora, dia, semana) é um resumo Space-Saving com no máximo "capacity" documentos:
+// os mais lidos são sempre mantidos e o erro de cada contagem é limitado pela menor contagem do resumo.
+// As contagens decaem exponencialmente com o tempo (forward decay: o peso de cada leitura cresce com o
+// tempo em vez de reduzir todas as contagens), então consultar o topo não exige varrer nada.
+@Slf4j
+@Service
+public class TrendingDocumentTracker {
+
+    // Vida média de uma leitura em cada janela
+    public enum Window {
+        HOUR(Duration.ofHours(1)),
+        DAY(Duration.ofDays(1)),
+        WEEK(Duration.ofDays(7));
+
+        private final double meanLifetimeMillis;
+
+        Window(Duration meanLifetime) {
+            this.meanLifetimeMillis = meanLifetime.toMillis();
+        }
+    }
+
+    // Acima disso o peso exp(idade/vida média) é renormalizado para não estourar o double
+    private static final double MAX_EXPONENT = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int capacity;
+    private final long sessionGapMillis;
+
+    private final Map<Long, TenantTrends> tenants = new ConcurrentHashMap<>();
+    // Última leitura contada por (usuário, documento): atualizações de progresso da mesma sessão contam uma vez
+    private final Map<ReaderKey, Long> lastCounted = new ConcurrentHashMap<>();
+
+    private volatile boolean ready = false;
+
+    public TrendingDocumentTracker(JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.trending.enabled:true}") boolean enabled,
+                                   @Value("${app.trending.capacity:1000}") int capacity,
+                                   @Value("${app.trending.session-gap-minutes:30}") long sessionGapMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.sessionGapMillis = Duration.ofMinutes(sessionGapMinutes).toMillis();
+
+        Gauge.builder("document.trending.tenants", tenants, Map::size)
+                .description("Tenants com documentos em alta acompanhados em memória")
+                .register(meterRegistry);
+        Gauge.builder("document.trending.sessions", lastCounted, Map::size)
+                .description("Sessões de leitura recentes usadas para não contar a mesma leitura duas vezes")
+                .register(meterRegistry);
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    // Registra uma leitura. Chamado a cada atualização de progresso; só a primeira de cada sessão é contada.
+    // O tenant é o do usuário que leu; leituras sem tenant não entram em nenhuma partição.
+    public void recordRead(Long tenantId, Long userId, Long documentId) {
+        if (!enabled || tenantId == null || documentId == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (userId != null) {
+            Long previous = lastCounted.put(new ReaderKey(userId, documentId), now);
+            if (previous != null && now - previous < sessionGapMillis) {
+                return;
+            }
+        }
+        tenants.computeIfAbsent(tenantId, k -> new TenantTrends(capacity))
+                .add(documentId, now);
+    }
+
+    // Ids dos documentos em alta na janela, do maior para o menor score, que passam no filtro
+    public List<Long> top(Long tenantId, Window window, int limit, LongPredicate filter) {
+        TenantTrends trends = tenantId != null ? tenants.get(tenantId) : null;
+        if (trends == null) {
+            return List.of();
+        }
+        return trends.top(window, limit, filter);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            restore();
+        } catch (DataAccessException e) {
+            log.error("Não foi possível carregar o checkpoint dos documentos em alta", e);
+        }
+        ready = true;
+    }
+
+    @Scheduled(fixedDelayString = "${app.trending.checkpoint-interval-ms:300000}",
+            initialDelayString = "${app.trending.checkpoint-interval-ms:300000}")
+    public void scheduledCheckpoint() {
+        if (!isReady()) {
+            return;
+        }
+        try {
+            checkpoint();
+        } catch (DataAccessException e) {
+            log.error("Falha ao gravar o checkpoint dos documentos em alta", e);
+        }
+        expireSessions();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (isReady()) {
+            try {
+                checkpoint();
+            } catch (DataAccessException e) {
+                log.error("Falha ao gravar o checkpoint dos documentos em alta", e);
+            }
+        }
+    }
+
+    // Grava os scores já decaídos até agora; ao restaurar, o tempo parado também é descontado
+    public void checkpoint() {
+        long now = System.currentTimeMillis();
+        List<Object[]> rows = new ArrayList<>();
+        tenants.forEach((tenantId, trends) -> {
+            for (Window window : Window.values()) {
+                for (Scored scored : trends.snapshot(window, now)) {
+                    rows.add(new Object[]{tenantId, window.name(), scored.getDocumentId(),
+                            scored.getScore(), scored.getError(), new Timestamp(now)});
+                }
+            }
+        });
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM document_trending_checkpoints");
+            jdbcTemplate.batchUpdate("INSERT INTO document_trending_checkpoints " +
+                    "(tenant_id, time_window, document_id, score, error, updated_at) VALUES (?, ?, ?, ?, ?, ?)", rows);
+        });
+        log.debug("Checkpoint dos documentos em alta gravado: {} linhas", rows.size());
+    }
+
+    private void restore() {
+        long now = System.currentTimeMillis();
+        int[] restored = {0};
+        // tenant_id = 0 era a partição das leituras sem tenant, que não é mais mantida
+        jdbcTemplate.query("SELECT tenant_id, time_window, document_id, score, error, updated_at " +
+                "FROM document_trending_checkpoints WHERE tenant_id <> 0 ORDER BY score", rs -> {
+            Window window;
+            try {
+                window = Window.valueOf(rs.getString("time_window"));
+            } catch (IllegalArgumentException e) {
+                return;
+            }
+            double age = Math.max(0, now - rs.getTimestamp("updated_at").getTime());
+            double decay = Math.exp(-age / window.meanLifetimeMillis);
+            tenants.computeIfAbsent(rs.getLong("tenant_id"), k -> new TenantTrends(capacity))
+                    .restore(window, rs.getLong("document_id"), rs.getDouble("score") * decay, rs.getDouble("error") * decay, now);
+            restored[0]++;
+        });
+        if (restored[0] > 0) {
+            log.info("Documentos em alta restaurados do checkpoint: {} entradas", restored[0]);
+        }
+    }
+
+    private void expireSessions() {
+        long cutoff = System.currentTimeMillis() - sessionGapMillis;
+        lastCounted.values().removeIf(counted -> counted < cutoff);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Scored {
+        private final long documentId;
+        private final double score;
+        private final double error;
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static final class ReaderKey {
+        private final long userId;
+        private final long documentId;
+    }
+
+    // Resumos das três janelas de um tenant, protegidos por um único monitor
+    private static final class TenantTrends {
+
+        private final EnumMap<Window, DecayingSpaceSaving> windows = new EnumMap<>(Window.class);
+
+        TenantTrends(int capacity) {
+            for (Window window : Window.values()) {
+                windows.put(window, new DecayingSpaceSaving(capacity, window.meanLifetimeMillis));
+            }
+        }
+
+        synchronized void add(long documentId, long now) {
+            for (DecayingSpaceSaving summary : windows.values()) {
+                summary.add(documentId, now);
+            }
+        }
+
+        synchronized void restore(Window window, long documentId, double score, double error, long now) {
+            windows.get(window).restore(documentId, score, error, now);
+        }
+
+        synchronized List<Long> top(Window window, int limit, LongPredicate filter) {
+            return windows.get(window).top(limit, filter);
+        }
+
+        synchronized List<Scored> snapshot(Window window, long now) {
+            return windows.get(window).snapshot(now);
+        }
+    }
+
+    // Space-Saving com forward decay. As contagens ficam na escala do instante "landmark":
+    // uma leitura em t soma exp((t - landmark) / vida média), e o score em t é contagem * exp(-(t - landmark) / vida média).
+    private static final class DecayingSpaceSaving {
+
+        private static final Comparator<Slot> ORDER =
+                Comparator.comparingDouble((Slot slot) -> slot.count).thenComparingLong(slot -> slot.documentId);
+
+        private final int capacity;
+        private final double meanLifetimeMillis;
+        private final Map<Long, Slot> slots = new HashMap<>();
+        private final TreeSet<Slot> ordered = new TreeSet<>(ORDER);
+        private long landmark = System.currentTimeMillis();
+
+        DecayingSpaceSaving(int capacity, double meanLifetimeMillis) {
+            this.capacity = capacity;
+            this.meanLifetimeMillis = meanLifetimeMillis;
+        }
+
+        void add(long documentId, long now) {
+            if ((now - landmark) / meanLifetimeMillis > MAX_EXPONENT) {
+                renormalize(now);
+            }
+            increment(documentId, Math.exp((now - landmark) / meanLifetimeMillis), 0);
+        }
+
+        void restore(long documentId, double score, double error, long now) {
+            double scale = Math.exp((now - landmark) / meanLifetimeMillis);
+            increment(documentId, score * scale, error * scale);
+        }
+
+        private void increment(long documentId, double weight, double error) {
+            Slot slot = slots.get(documentId);
+            if (slot != null) {
+                ordered.remove(slot);
+                slot.count += weight;
+                ordered.add(slot);
+                return;
+            }
+
+            if (slots.size() < capacity) {
+                slot = new Slot(documentId, weight, error);
+            } else {
+                // Substitui o documento de menor contagem, que passa a ser o erro máximo do novo
+                Slot evicted = ordered.pollFirst();
+                slots.remove(evicted.documentId);
+                slot = new Slot(documentId, evicted.count + weight, evicted.count);
+            }
+            slots.put(documentId, slot);
+            ordered.add(slot);
+        }
+
+        List<Long> top(int limit, LongPredicate filter) {
+            List<Long> ids = new ArrayList<>(Math.min(limit, slots.size()));
+            for (Slot slot : ordered.descendingSet()) {
+                if (ids.size() >= limit) {
+                    break;
+                }
+                if (filter.test(slot.documentId)) {
+                    ids.add(slot.documentId);
+                }
+            }
+            return ids;
+        }
+
+        List<Scored> snapshot(long now) {
+            double decay = Math.exp(-(now - landmark) / meanLifetimeMillis);
+            List<Scored> scored = new ArrayList<>(slots.size());
+            for (Slot slot : ordered.descendingSet()) {
+                scored.add(new Scored(slot.documentId, slot.count * decay, slot.error * decay));
+            }
+            return scored;
+        }
+
+        // Traz as contagens para a escala de "now"; a ordem relativa não muda
+        private void renormalize(long now) {
+            double decay = Math.exp(-(now - landmark) / meanLifetimeMillis);
+            List<Slot> current = new ArrayList<>(ordered);
+            ordered.clear();
+            for (Slot slot : current) {
+                slot.count *= decay;
+                slot.error *= decay;
+                ordered.add(slot);
+            }
+            landmark = now;
+        }
+    }
+
+    private static final class Slot {
+        private final long documentId;
+        private double count;
+        private double error;
+
+        Slot(long documentId, double count, double error) {
+            this.documentId = documentId;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
@@ -1,8 +1,13 @@
 package com.gestaoformativa.service;
 
 import jakarta.transaction.Transactional;
+import com.gestaoformativa.model.DocumentAccessProfile;
 import com.gestaoformativa.model.Role;
+import com.gestaoformativa.model.TokenPrincipal;
 import com.gestaoformativa.model.User;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import com.gestaoformativa.repository.RoleRepository;
 import com.gestaoformativa.repository.UserRepository;
@@ -10,6 +15,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import javax.persistence.EntityNotFoundException;
 import java.util.List;
+import java.util.Objects;
 
 @Service
 public class UserService {
@@ -23,18 +29,56 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private RecommendationService recommendationService;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private SecurityVersionService securityVersions;
+
+    // O usuário autenticado já foi resolvido pelo filtro JWT nesta requisição (SecurityContext);
+    // com um token de claims completas a entidade vem do cache de usuários autenticados
     public User findByUsername(String username) {
+        Object principal = currentPrincipal();
+        if (principal instanceof User user && user.getUsername().equals(username)) {
+            return user;
+        }
+        if (principal instanceof TokenPrincipal token && token.getUsername().equals(username)) {
+            return principalCache.get(username, this::loadByUsername);
+        }
+        return loadByUsername(username);
+    }
+
+    // Perfil de acesso a documentos do usuário autenticado, sem consulta quando o token traz as claims
+    public DocumentAccessProfile getAccessProfile(UserDetails userDetails) {
+        if (userDetails instanceof TokenPrincipal token) {
+            return token.toAccessProfile();
+        }
+        return DocumentAccessProfile.of(findByUsername(userDetails.getUsername()));
+    }
+
+    private User loadByUsername(String username) {
         return userRepository.findByUsername(username)
                 .orElseThrow(() -> new EntityNotFoundException("Usuário não encontrado com username: " + username));
     }
 
+    private static Object currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getPrincipal() : null;
+    }
+
     public User getUserById(Long id) {
         return userRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Usuário não encontrado com id: " + id));
     }
 
     public User saveUser(User user) {
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        securityVersions.bump(saved.getId());
+        principalCache.invalidateUser(saved.getId());
+        return saved;
     }
 
     public List<User> getAllUsers() {
@@ -51,6 +95,11 @@ public class UserService {
         User existingUser = userRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Usuário não encontrado com ID: " + id));
 
+        // Dados usados nas decisões de acesso: se mudarem, os tokens emitidos deixam de valer
+        boolean accessChanged = existingUser.getLifeStage() != updatedData.getLifeStage()
+                || !Objects.equals(locationId(existingUser), locationId(updatedData))
+                || (updatedData.getRole() != null && !updatedData.getRole().equals(existingUser.getRole()));
+
         existingUser.setName(updatedData.getName());
         existingUser.setCity(updatedData.getCity());
         existingUser.setState(updatedData.getState());
@@ -71,15 +120,27 @@ public class UserService {
 //             existingUser.setPassword(passwordEncoder.encode(updatedData.getPassword()));
 //        }
 
-        return userRepository.save(existingUser);
+        User saved = userRepository.save(existingUser);
+        if (accessChanged) {
+            securityVersions.bump(id);
+        }
+        principalCache.invalidateUser(id);
+        // Etapa, localização ou papel podem ter mudado o público dos documentos
+        recommendationService.userChanged(id);
+        return saved;
     }
 
     public void deleteUser(Long id) {
         userRepository.deleteById(id);
+        securityVersions.evict(id);
+        principalCache.invalidateUser(id);
+        recommendationService.userChanged(id);
     }
 
     public void deleteAllUsers() {
         userRepository.deleteAll();
+        securityVersions.evictAll();
+        principalCache.invalidateAll();
     }
 
     @Transactional
@@ -95,6 +156,14 @@ public class UserService {
         }
 
         user.setRole(role);
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        securityVersions.bump(userId);
+        principalCache.invalidateUser(userId);
+        recommendationService.userChanged(userId);
+        return saved;
+    }
+
+    private static Long locationId(User user) {
+        return user.getMissionLocation() != null ? user.getMissionLocation().getId() : null;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,71 @@
+-- Agregados de leitura por documento, mantidos por trigger na mesma transação que grava o progresso.
+-- Média, conclusão e "mais lidos" passam a ser leituras de uma linha, sem varrer document_reading_progress.
+CREATE TABLE IF NOT EXISTS document_reading_stats (
+                                  document_id BIGINT PRIMARY KEY REFERENCES formative_documents(id) ON DELETE CASCADE,
+                                  reader_count INTEGER NOT NULL DEFAULT 0,
+                                  completed_count INTEGER NOT NULL DEFAULT 0,
+                                  progress_sum BIGINT NOT NULL DEFAULT 0,
+                                  last_activity TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_document_reading_stats_readers ON document_reading_stats(reader_count DESC, document_id DESC);
+
+-- Estatísticas do progresso já existente
+INSERT INTO document_reading_stats (document_id, reader_count, completed_count, progress_sum, last_activity)
+SELECT document_id,
+       COUNT(*),
+       COUNT(*) FILTER (WHERE completed),
+       COALESCE(SUM(progress_percentage), 0),
+       MAX(last_view_date)
+FROM document_reading_progress
+GROUP BY document_id
+ON CONFLICT (document_id) DO NOTHING;
+
+DROP TRIGGER IF EXISTS trigger_update_document_reading_stats ON document_reading_progress;
+DROP FUNCTION IF EXISTS update_document_reading_stats();
+
+CREATE FUNCTION update_document_reading_stats()
+RETURNS TRIGGER AS $$
+BEGIN
+    -- Atualização do mesmo documento: aplica só as diferenças em uma única linha
+    IF TG_OP = 'UPDATE' AND OLD.document_id = NEW.document_id THEN
+        UPDATE document_reading_stats
+        SET completed_count = completed_count
+                + (CASE WHEN COALESCE(NEW.completed, false) THEN 1 ELSE 0 END)
+                - (CASE WHEN COALESCE(OLD.completed, false) THEN 1 ELSE 0 END),
+            progress_sum = progress_sum + COALESCE(NEW.progress_percentage, 0) - COALESCE(OLD.progress_percentage, 0),
+            last_activity = GREATEST(last_activity, NEW.last_view_date)
+        WHERE document_id = NEW.document_id;
+        RETURN NEW;
+    END IF;
+
+    IF TG_OP IN ('DELETE', 'UPDATE') THEN
+        UPDATE document_reading_stats
+        SET reader_count = reader_count - 1,
+            completed_count = completed_count - (CASE WHEN COALESCE(OLD.completed, false) THEN 1 ELSE 0 END),
+            progress_sum = progress_sum - COALESCE(OLD.progress_percentage, 0)
+        WHERE document_id = OLD.document_id;
+    END IF;
+
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        INSERT INTO document_reading_stats (document_id, reader_count, completed_count, progress_sum, last_activity)
+        VALUES (NEW.document_id, 1,
+                CASE WHEN COALESCE(NEW.completed, false) THEN 1 ELSE 0 END,
+                COALESCE(NEW.progress_percentage, 0),
+                NEW.last_view_date)
+        ON CONFLICT (document_id) DO UPDATE
+            SET reader_count = document_reading_stats.reader_count + 1,
+                completed_count = document_reading_stats.completed_count + EXCLUDED.completed_count,
+                progress_sum = document_reading_stats.progress_sum + EXCLUDED.progress_sum,
+                last_activity = GREATEST(document_reading_stats.last_activity, EXCLUDED.last_activity);
+        RETURN NEW;
+    END IF;
+
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trigger_update_document_reading_stats
+    AFTER INSERT OR DELETE OR UPDATE OF document_id, progress_percentage, completed, last_view_date ON document_reading_progress
+    FOR EACH ROW
+EXECUTE FUNCTION update_document_reading_stats();
@@ -0,0 +1,11 @@
+-- Checkpoint do TrendingDocumentTracker: scores (já decaídos até updated_at) dos documentos
+-- em alta por tenant e janela, recarregados na inicialização.
+CREATE TABLE IF NOT EXISTS document_trending_checkpoints (
+                                  tenant_id BIGINT NOT NULL,
+                                  time_window VARCHAR(10) NOT NULL,
+                                  document_id BIGINT NOT NULL,
+                                  score DOUBLE PRECISION NOT NULL,
+                                  error DOUBLE PRECISION NOT NULL DEFAULT 0,
+                                  updated_at TIMESTAMP NOT NULL,
+                                  PRIMARY KEY (tenant_id, time_window, document_id)
+);
@@ -0,0 +1,19 @@
+-- Sketches HyperLogLog de leitores distintos por dia (ver HyperLogLog.java para o formato).
+-- location_id = 0 agrupa os leitores sem localização.
+CREATE TABLE IF NOT EXISTS document_reader_sketches (
+                                  document_id BIGINT NOT NULL REFERENCES formative_documents(id) ON DELETE CASCADE,
+                                  location_id BIGINT NOT NULL DEFAULT 0,
+                                  day DATE NOT NULL,
+                                  sketch BYTEA NOT NULL,
+                                  PRIMARY KEY (document_id, day, location_id)
+);
+
+CREATE TABLE IF NOT EXISTS location_reader_sketches (
+                                  location_id BIGINT NOT NULL REFERENCES mission_locations(id) ON DELETE CASCADE,
+                                  day DATE NOT NULL,
+                                  sketch BYTEA NOT NULL,
+                                  PRIMARY KEY (location_id, day)
+);
+
+CREATE INDEX IF NOT EXISTS idx_document_reader_sketches_day ON document_reader_sketches(day);
+CREATE INDEX IF NOT EXISTS idx_location_reader_sketches_day ON location_reader_sketches(day);
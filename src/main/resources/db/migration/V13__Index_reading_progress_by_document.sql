@@ -0,0 +1,3 @@
+-- Leitores mais recentes de um documento (base da co-leitura nas recomendações)
+CREATE INDEX IF NOT EXISTS idx_document_reading_progress_document
+    ON document_reading_progress(document_id, last_view_date DESC);
@@ -0,0 +1,12 @@
+-- "Quem leu este documento também leu": vizinhos mais próximos por co-leitura (similaridade do cosseno),
+-- recalculados periodicamente a partir de document_reading_progress
+CREATE TABLE IF NOT EXISTS document_related (
+                                  document_id BIGINT NOT NULL REFERENCES formative_documents(id) ON DELETE CASCADE,
+                                  related_document_id BIGINT NOT NULL REFERENCES formative_documents(id) ON DELETE CASCADE,
+                                  score REAL NOT NULL,
+                                  co_readers INTEGER NOT NULL,
+                                  PRIMARY KEY (document_id, related_document_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_document_related_score ON document_related(document_id, score DESC);
+CREATE INDEX IF NOT EXISTS idx_document_related_related ON document_related(related_document_id);
@@ -0,0 +1,3 @@
+-- Versão de segurança do usuário: incrementada quando papel, etapa, localização ou situação mudam.
+-- Tokens com claims completas carregam a versão e deixam de valer quando ela muda.
+ALTER TABLE users ADD COLUMN IF NOT EXISTS security_version INTEGER NOT NULL DEFAULT 0;
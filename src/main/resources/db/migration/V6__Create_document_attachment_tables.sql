@@ -0,0 +1,36 @@
+-- Metadados dos anexos de documentos (um anexo por documento)
+CREATE TABLE IF NOT EXISTS document_attachments (
+                                      id BIGSERIAL PRIMARY KEY,
+                                      document_id BIGINT NOT NULL UNIQUE,
+                                      file_name VARCHAR(255),
+                                      content_type VARCHAR(255),
+                                      size_bytes BIGINT NOT NULL,
+                                      sha256 VARCHAR(64) NOT NULL,
+                                      created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+                                      FOREIGN KEY (document_id) REFERENCES formative_documents(id) ON DELETE CASCADE
+);
+
+-- Conteúdo binário dos anexos, separado dos metadados para que nenhuma consulta
+-- de documentos leia os bytes sem necessidade
+CREATE TABLE IF NOT EXISTS document_attachment_contents (
+                                              attachment_id BIGINT PRIMARY KEY,
+                                              data BYTEA NOT NULL,
+
+                                              FOREIGN KEY (attachment_id) REFERENCES document_attachments(id) ON DELETE CASCADE
+);
+
+-- Migrar os anexos existentes
+INSERT INTO document_attachments (document_id, file_name, content_type, size_bytes, sha256)
+SELECT id, attachment_name, attachment_type, octet_length(attachment_data), encode(sha256(attachment_data), 'hex')
+FROM formative_documents
+WHERE attachment_data IS NOT NULL;
+
+INSERT INTO document_attachment_contents (attachment_id, data)
+SELECT a.id, d.attachment_data
+FROM document_attachments a
+         JOIN formative_documents d ON d.id = a.document_id;
+
+ALTER TABLE formative_documents DROP COLUMN IF EXISTS attachment_data;
+ALTER TABLE formative_documents DROP COLUMN IF EXISTS attachment_name;
+ALTER TABLE formative_documents DROP COLUMN IF EXISTS attachment_type;
@@ -0,0 +1,2 @@
+-- Conteúdo dos anexos sem compressão TOAST, permitindo leitura parcial (substring) sem descomprimir o arquivo inteiro
+ALTER TABLE document_attachment_contents ALTER COLUMN data SET STORAGE EXTERNAL;
@@ -0,0 +1,51 @@
+-- Blobs de anexos endereçados pelo SHA-256 do conteúdo. Os bytes ficam no BlobStore (disco);
+-- aqui fica apenas a contagem de quantos anexos referenciam cada blob.
+CREATE TABLE IF NOT EXISTS attachment_blobs (
+                                  hash VARCHAR(64) PRIMARY KEY,
+                                  size_bytes BIGINT NOT NULL,
+                                  ref_count INTEGER NOT NULL DEFAULT 0,
+                                  unreferenced_since TIMESTAMP,
+                                  created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_attachment_blobs_unreferenced ON attachment_blobs(unreferenced_since) WHERE ref_count = 0;
+CREATE INDEX IF NOT EXISTS idx_document_attachments_sha256 ON document_attachments(sha256);
+
+-- Referências dos anexos existentes
+INSERT INTO attachment_blobs (hash, size_bytes, ref_count)
+SELECT sha256, MAX(size_bytes), COUNT(*)
+FROM document_attachments
+GROUP BY sha256
+ON CONFLICT (hash) DO NOTHING;
+
+-- Mantém ref_count em qualquer inclusão ou exclusão de anexo, inclusive pelo ON DELETE CASCADE dos documentos
+DROP TRIGGER IF EXISTS trigger_update_attachment_blob_refs ON document_attachments;
+DROP FUNCTION IF EXISTS update_attachment_blob_refs();
+
+CREATE FUNCTION update_attachment_blob_refs()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP IN ('DELETE', 'UPDATE') THEN
+        UPDATE attachment_blobs
+        SET ref_count = ref_count - 1,
+            unreferenced_since = CASE WHEN ref_count - 1 <= 0 THEN CURRENT_TIMESTAMP ELSE NULL END
+        WHERE hash = OLD.sha256;
+    END IF;
+
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        INSERT INTO attachment_blobs (hash, size_bytes, ref_count)
+        VALUES (NEW.sha256, NEW.size_bytes, 1)
+        ON CONFLICT (hash) DO UPDATE
+            SET ref_count = attachment_blobs.ref_count + 1,
+                unreferenced_since = NULL;
+        RETURN NEW;
+    END IF;
+
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trigger_update_attachment_blob_refs
+    AFTER INSERT OR DELETE OR UPDATE OF sha256 ON document_attachments
+    FOR EACH ROW
+EXECUTE FUNCTION update_attachment_blob_refs();
@@ -0,0 +1,43 @@
+-- Busca textual: configuração em português que ignora acentos
+CREATE EXTENSION IF NOT EXISTS unaccent;
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_ts_config WHERE cfgname = 'portuguese_unaccent') THEN
+        CREATE TEXT SEARCH CONFIGURATION portuguese_unaccent (COPY = portuguese);
+        ALTER TEXT SEARCH CONFIGURATION portuguese_unaccent
+            ALTER MAPPING FOR hword, hword_part, word WITH unaccent, portuguese_stem;
+    END IF;
+END
+$$;
+
+ALTER TABLE formative_documents ADD COLUMN IF NOT EXISTS search_vector TSVECTOR;
+
+-- Pesos: título (A), palavras-chave (B), conteúdo (C)
+DROP TRIGGER IF EXISTS trigger_update_document_search_vector ON formative_documents;
+DROP FUNCTION IF EXISTS update_document_search_vector();
+
+CREATE FUNCTION update_document_search_vector()
+    RETURNS TRIGGER AS $$
+BEGIN
+    NEW.search_vector :=
+            setweight(to_tsvector('portuguese_unaccent', COALESCE(NEW.title, '')), 'A') ||
+            setweight(to_tsvector('portuguese_unaccent', COALESCE(NEW.keywords, '')), 'B') ||
+            setweight(to_tsvector('portuguese_unaccent', COALESCE(NEW.content, '')), 'C');
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trigger_update_document_search_vector
+    BEFORE INSERT OR UPDATE OF title, keywords, content ON formative_documents
+    FOR EACH ROW
+EXECUTE FUNCTION update_document_search_vector();
+
+-- Preencher os documentos existentes
+UPDATE formative_documents
+SET search_vector =
+        setweight(to_tsvector('portuguese_unaccent', COALESCE(title, '')), 'A') ||
+        setweight(to_tsvector('portuguese_unaccent', COALESCE(keywords, '')), 'B') ||
+        setweight(to_tsvector('portuguese_unaccent', COALESCE(content, '')), 'C');
+
+CREATE INDEX IF NOT EXISTS idx_formative_documents_search_vector ON formative_documents USING GIN (search_vector);
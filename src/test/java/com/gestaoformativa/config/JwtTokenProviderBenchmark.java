@@ -0,0 +1,109 @@
+package com.gestaoformativa.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.util.concurrent.TimeUnit;
+
+// Custo da autenticação por requisição no JwtTokenProvider:
+// - cachedParseClaims: parseClaims com o cache de tokens verificados (caminho atual)
+// - uncachedParseClaims: parseClaims verificando a assinatura a cada chamada
+// - uncachedDoubleParse: fluxo antigo do filtro, validateToken e depois getUsernameFromJWT,
+//   cada um verificando o token
+// - cachedParseClaimsConcurrent: parseClaims com o cache, com 8 threads lendo ao mesmo tempo
+// Os tokens circulam entre "tokens" usuários distintos, como em um servidor com várias sessões.
+// Execução: mvn test-compile exec:java -Dexec.classpathScope=test
+//           -Dexec.mainClass=com.gestaoformativa.config.JwtTokenProviderBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtTokenProviderBenchmark {
+
+    private static final String SECRET = "BenchmarkSecretKeyForJwtTokenGenerationThatIsAtLeast512BitsLong!!";
+    private static final int EXPIRATION_MS = 3_600_000;
+
+    @Param({"1", "1000"})
+    public int tokens;
+
+    private JwtTokenProvider cached;
+    private JwtTokenProvider uncached;
+    private String[] issued;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        cached = new JwtTokenProvider(SECRET, EXPIRATION_MS, true, 10_000, false, new SimpleMeterRegistry());
+        uncached = new JwtTokenProvider(SECRET, EXPIRATION_MS, false, 10_000, false, new SimpleMeterRegistry());
+        issued = new String[tokens];
+        for (int i = 0; i < tokens; i++) {
+            issued[i] = cached.generateToken(new UsernamePasswordAuthenticationToken("user" + i, null));
+        }
+    }
+
+    private String nextToken() {
+        String token = issued[next];
+        next = next + 1 == issued.length ? 0 : next + 1;
+        return token;
+    }
+
+    @Benchmark
+    public Object cachedParseClaims() {
+        return cached.parseClaims(nextToken());
+    }
+
+    // Cada thread percorre os tokens a partir da sua própria posição
+    @State(Scope.Thread)
+    public static class ThreadCursor {
+        private int next;
+
+        String nextToken(String[] issued) {
+            String token = issued[next];
+            next = next + 1 == issued.length ? 0 : next + 1;
+            return token;
+        }
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object cachedParseClaimsConcurrent(ThreadCursor cursor) {
+        return cached.parseClaims(cursor.nextToken(issued));
+    }
+
+    @Benchmark
+    public Object uncachedParseClaims() {
+        return uncached.parseClaims(nextToken());
+    }
+
+    @Benchmark
+    public void uncachedDoubleParse(Blackhole blackhole) {
+        String token = nextToken();
+        if (uncached.validateToken(token)) {
+            blackhole.consume(uncached.getUsernameFromJWT(token));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtTokenProviderBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,100 @@
+package com.gestaoformativa.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.concurrent.TimeUnit;
+
+// Custo de decidir se uma requisição é pública, sobre uma mistura de rotas protegidas
+// (a maioria, como em produção), públicas e pré-voo CORS:
+// - publicPathsMatches: PublicPaths.matches (prefixo literal + padrões compilados)
+// - shouldNotFilter: decisão completa do JwtAuthenticationFilter (OPTIONS ou rota pública)
+// - antPathMatcher: referência casando cada padrão com AntPathMatcher a cada requisição
+// Execução: mvn test-compile exec:java -Dexec.classpathScope=test
+//           -Dexec.mainClass=com.gestaoformativa.config.PublicPathsBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PublicPathsBenchmark {
+
+    private static final String[][] REQUESTS = {
+            {"GET", "/api/documents/42"},
+            {"GET", "/api/search/documents"},
+            {"GET", "/api/users/me"},
+            {"PUT", "/api/documents/42/progress"},
+            {"GET", "/api/recommendations"},
+            {"GET", "/api/follow-up/7/entries"},
+            {"POST", "/api/auth/login"},
+            {"POST", "/api/auth/refresh"},
+            {"GET", "/swagger-ui/index.html"},
+            {"GET", "/api-docs/swagger-config"},
+            {"GET", "/api-documents"},
+            {"OPTIONS", "/api/documents/42"}
+    };
+
+    private final AntPathMatcher antPathMatcher = new AntPathMatcher();
+    private JwtAuthenticationFilter filter;
+    private String[] paths;
+    private MockHttpServletRequest[] requests;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        filter = new JwtAuthenticationFilter();
+        paths = new String[REQUESTS.length];
+        requests = new MockHttpServletRequest[REQUESTS.length];
+        for (int i = 0; i < REQUESTS.length; i++) {
+            paths[i] = REQUESTS[i][1];
+            requests[i] = new MockHttpServletRequest(REQUESTS[i][0], REQUESTS[i][1]);
+        }
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = next + 1 == REQUESTS.length ? 0 : next + 1;
+        return index;
+    }
+
+    @Benchmark
+    public boolean publicPathsMatches() {
+        return PublicPaths.matches(paths[nextIndex()]);
+    }
+
+    @Benchmark
+    public boolean shouldNotFilter() {
+        return filter.shouldNotFilter(requests[nextIndex()]);
+    }
+
+    @Benchmark
+    public boolean antPathMatcher() {
+        String path = paths[nextIndex()];
+        for (String pattern : PublicPaths.PATTERNS) {
+            if (antPathMatcher.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PublicPathsBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,66 @@
+package com.gestaoformativa.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Sem falsos negativos e taxa de falsos positivos próxima da configurada, com o filtro cheio.
+class BloomFilterTest {
+
+    private static final int INSERTIONS = 20_000;
+    private static final int PROBES = 200_000;
+
+    @Test
+    void emptyFilterContainsNothing() {
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        assertFalse(filter.mightContain("jti"));
+        assertFalse(filter.mightContain(""));
+    }
+
+    @Test
+    void insertedValuesAreAlwaysFound() {
+        BloomFilter filter = new BloomFilter(INSERTIONS, 0.001);
+        String[] values = new String[INSERTIONS];
+        for (int i = 0; i < INSERTIONS; i++) {
+            values[i] = UUID.randomUUID().toString();
+            filter.add(values[i]);
+        }
+        for (String value : values) {
+            assertTrue(filter.mightContain(value), value);
+        }
+    }
+
+    @Test
+    void falsePositiveRateIsNearConfigured() {
+        for (double rate : new double[]{0.01, 0.001}) {
+            BloomFilter filter = new BloomFilter(INSERTIONS, rate);
+            for (int i = 0; i < INSERTIONS; i++) {
+                filter.add("revoked-" + i);
+            }
+            int falsePositives = 0;
+            for (int i = 0; i < PROBES; i++) {
+                if (filter.mightContain("active-" + i)) {
+                    falsePositives++;
+                }
+            }
+            double observed = (double) falsePositives / PROBES;
+            // Margem para a variação da amostra; um hash ruim ficaria muito acima
+            assertTrue(observed <= rate * 2, "taxa " + rate + ", observada " + observed);
+        }
+    }
+
+    @Test
+    void overfilledFilterStillHasNoFalseNegatives() {
+        // O serviço reconstrói o filtro ao passar da capacidade, mas até lá ele só perde precisão
+        BloomFilter filter = new BloomFilter(100, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.add("jti-" + i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.mightContain("jti-" + i));
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.gestaoformativa.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Estimativas dentro do erro esperado para p = 12, união pelo máximo dos registradores e
+// serialização esparsa/densa sem perda.
+class HyperLogLogTest {
+
+    // Erro padrão ~1,6%; 5% fica acima de três desvios
+    private static final double MAX_RELATIVE_ERROR = 0.05;
+
+    @Test
+    void emptySketchEstimatesZero() {
+        HyperLogLog sketch = new HyperLogLog();
+        assertTrue(sketch.isEmpty());
+        assertEquals(0, sketch.estimate());
+    }
+
+    @Test
+    void smallCardinalitiesUseLinearCounting() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long id = 1; id <= 100; id++) {
+            sketch.add(id);
+            // Repetições não contam
+            sketch.add(id);
+        }
+        assertFalse(sketch.isEmpty());
+        assertWithinError(100, sketch.estimate());
+    }
+
+    @Test
+    void estimateStaysWithinErrorBounds() {
+        for (int count : new int[]{1_000, 10_000, 100_000, 1_000_000}) {
+            HyperLogLog sketch = new HyperLogLog();
+            for (long id = 1; id <= count; id++) {
+                sketch.add(id);
+            }
+            assertWithinError(count, sketch.estimate());
+        }
+    }
+
+    @Test
+    void mergeEstimatesTheUnion() {
+        HyperLogLog first = new HyperLogLog();
+        HyperLogLog second = new HyperLogLog();
+        HyperLogLog union = new HyperLogLog();
+        // 0..29999 e 20000..49999: 50000 distintos, 10000 em comum
+        for (long id = 0; id < 30_000; id++) {
+            first.add(id);
+            union.add(id);
+        }
+        for (long id = 20_000; id < 50_000; id++) {
+            second.add(id);
+            union.add(id);
+        }
+
+        first.merge(second);
+        assertEquals(union.estimate(), first.estimate());
+        assertArrayEquals(union.toBytes(), first.toBytes());
+        assertWithinError(50_000, first.estimate());
+
+        // A união é idempotente
+        first.merge(second);
+        assertEquals(union.estimate(), first.estimate());
+    }
+
+    @Test
+    void sparseRoundTrip() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long id = 1; id <= 50; id++) {
+            sketch.add(id);
+        }
+        byte[] bytes = sketch.toBytes();
+        // Formato esparso: cabeçalho + 3 bytes por registrador não nulo
+        assertEquals(2, bytes[0]);
+        assertTrue(bytes.length < 2 + (1 << HyperLogLog.PRECISION), "tamanho: " + bytes.length);
+
+        HyperLogLog restored = HyperLogLog.fromBytes(bytes);
+        assertEquals(sketch.estimate(), restored.estimate());
+        assertArrayEquals(bytes, restored.toBytes());
+    }
+
+    @Test
+    void denseRoundTrip() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long id = 1; id <= 100_000; id++) {
+            sketch.add(id);
+        }
+        byte[] bytes = sketch.toBytes();
+        assertEquals(1, bytes[0]);
+        assertEquals(2 + (1 << HyperLogLog.PRECISION), bytes.length);
+
+        HyperLogLog restored = HyperLogLog.fromBytes(bytes);
+        assertEquals(sketch.estimate(), restored.estimate());
+        assertArrayEquals(bytes, restored.toBytes());
+    }
+
+    @Test
+    void sparseAndDenseSketchesMerge() {
+        HyperLogLog sparse = new HyperLogLog();
+        for (long id = 1_000_000; id < 1_000_050; id++) {
+            sparse.add(id);
+        }
+        HyperLogLog dense = new HyperLogLog();
+        for (long id = 1; id <= 100_000; id++) {
+            dense.add(id);
+        }
+
+        HyperLogLog merged = HyperLogLog.fromBytes(dense.toBytes());
+        merged.merge(HyperLogLog.fromBytes(sparse.toBytes()));
+        dense.merge(sparse);
+        assertArrayEquals(dense.toBytes(), merged.toBytes());
+    }
+
+    @Test
+    void unknownFormatIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> HyperLogLog.fromBytes(new byte[]{9, HyperLogLog.PRECISION}));
+    }
+
+    private static void assertWithinError(long expected, long estimate) {
+        double error = Math.abs(estimate - expected) / (double) expected;
+        assertTrue(error <= MAX_RELATIVE_ERROR, "esperado ~" + expected + ", estimado " + estimate);
+    }
+}
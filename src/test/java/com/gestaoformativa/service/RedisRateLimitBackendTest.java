@@ -0,0 +1,129 @@
+package com.gestaoformativa.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Executa o script GCRA em um Redis real (embutido) e compara com o LocalRateLimitBackend:
+// mesma rajada, mesma recarga e mesmo Retry-After para a mesma sequência de requisições.
+class RedisRateLimitBackendTest {
+
+    private static final String PREFIX = "rate-limit-test:";
+    // Diferença aceita entre o relógio do Redis e o System.nanoTime() entre as duas chamadas
+    private static final long CLOCK_TOLERANCE_MICROS = TimeUnit.MILLISECONDS.toMicros(50);
+
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        if (connectionFactory != null) {
+            connectionFactory.destroy();
+        }
+        if (redisServer != null) {
+            redisServer.stop();
+        }
+    }
+
+    @Test
+    void burstMatchesLocalBackend() {
+        RedisRateLimitBackend redis = new RedisRateLimitBackend(redisTemplate, PREFIX);
+        LocalRateLimitBackend local = new LocalRateLimitBackend(1000);
+        long interval = TimeUnit.SECONDS.toMicros(10);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, redis.tryConsume("burst", 5, interval), "requisição " + i);
+            assertEquals(0, local.tryConsume("burst", 5, interval), "requisição " + i);
+        }
+        assertTrue(redis.tryConsume("burst", 5, interval) > 0);
+        assertTrue(local.tryConsume("burst", 5, interval) > 0);
+
+        // Buckets independentes por chave
+        assertEquals(0, redis.tryConsume("burst-other", 5, interval));
+        assertEquals(0, local.tryConsume("burst-other", 5, interval));
+    }
+
+    @Test
+    void refillMatchesLocalBackend() throws InterruptedException {
+        RedisRateLimitBackend redis = new RedisRateLimitBackend(redisTemplate, PREFIX);
+        LocalRateLimitBackend local = new LocalRateLimitBackend(1000);
+        long interval = TimeUnit.MILLISECONDS.toMicros(200);
+
+        for (int i = 0; i < 2; i++) {
+            assertEquals(0, redis.tryConsume("refill", 2, interval));
+            assertEquals(0, local.tryConsume("refill", 2, interval));
+        }
+        assertTrue(redis.tryConsume("refill", 2, interval) > 0);
+        assertTrue(local.tryConsume("refill", 2, interval) > 0);
+
+        // Um intervalo devolve exatamente uma ficha
+        Thread.sleep(TimeUnit.MICROSECONDS.toMillis(interval) + 20);
+        assertEquals(0, redis.tryConsume("refill", 2, interval));
+        assertEquals(0, local.tryConsume("refill", 2, interval));
+        assertTrue(redis.tryConsume("refill", 2, interval) > 0);
+        assertTrue(local.tryConsume("refill", 2, interval) > 0);
+
+        // Com o bucket cheio de novo a chave expira no Redis
+        Thread.sleep(TimeUnit.MICROSECONDS.toMillis(2 * interval) + 50);
+        assertFalse(Boolean.TRUE.equals(redisTemplate.hasKey(PREFIX + "refill")));
+        for (int i = 0; i < 2; i++) {
+            assertEquals(0, redis.tryConsume("refill", 2, interval));
+            assertEquals(0, local.tryConsume("refill", 2, interval));
+        }
+    }
+
+    @Test
+    void retryAfterMatchesLocalBackend() {
+        RedisRateLimitBackend redis = new RedisRateLimitBackend(redisTemplate, PREFIX);
+        LocalRateLimitBackend local = new LocalRateLimitBackend(1000);
+        long interval = TimeUnit.MILLISECONDS.toMicros(1500);
+
+        for (int i = 0; i < 3; i++) {
+            redis.tryConsume("retry", 3, interval);
+            local.tryConsume("retry", 3, interval);
+        }
+        long redisWait = redis.tryConsume("retry", 3, interval);
+        long localWait = local.tryConsume("retry", 3, interval);
+
+        assertTrue(redisWait > 0 && redisWait <= interval, "espera no Redis: " + redisWait);
+        assertTrue(Math.abs(redisWait - localWait) <= CLOCK_TOLERANCE_MICROS,
+                "Redis " + redisWait + " µs, local " + localWait + " µs");
+        // Retry-After arredondado para cima em segundos, como no RateLimitService
+        assertEquals(retryAfterSeconds(localWait), retryAfterSeconds(redisWait));
+
+        // Requisições recusadas não consomem fichas
+        long again = redis.tryConsume("retry", 3, interval);
+        assertTrue(again > 0 && again <= redisWait);
+    }
+
+    private static long retryAfterSeconds(long waitMicros) {
+        return Math.max(1, TimeUnit.MICROSECONDS.toSeconds(waitMicros + TimeUnit.SECONDS.toMicros(1) - 1));
+    }
+}
@@ -0,0 +1,159 @@
+package com.gestaoformativa.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Conjunto exato + filtro de Bloom do TokenRevocationService, com o JdbcTemplate simulado:
+// revogação, expiração, purga, reconstrução do filtro, carga da tabela e o payload do NOTIFY
+// passando pelo apply() de outra instância.
+class TokenRevocationServiceTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+    }
+
+    private TokenRevocationService service(int expectedTokens) {
+        return new TokenRevocationService(jdbcTemplate, mock(DataSource.class), new SimpleMeterRegistry(),
+                true, expectedTokens, 0.001, 5000, 5000);
+    }
+
+    @Test
+    void revokedTokenIsRejectedUntilItExpires() {
+        TokenRevocationService service = service(1000);
+        long now = System.currentTimeMillis();
+
+        service.revoke("active", 1L, now + HOUR);
+        service.revoke("expired", 1L, now - 1);
+
+        assertTrue(service.isRevoked("active"));
+        // Já expirado: o token seria recusado pela própria validação do JWT
+        assertFalse(service.isRevoked("expired"));
+        assertFalse(service.isRevoked("never-revoked"));
+        assertFalse(service.isRevoked(null));
+    }
+
+    @Test
+    void disabledServiceRevokesNothing() {
+        TokenRevocationService service = new TokenRevocationService(jdbcTemplate, mock(DataSource.class),
+                new SimpleMeterRegistry(), false, 1000, 0.001, 5000, 5000);
+        service.revoke("jti", 1L, System.currentTimeMillis() + HOUR);
+        assertFalse(service.isRevoked("jti"));
+    }
+
+    @Test
+    void purgeKeepsTokensThatHaveNotExpired() {
+        TokenRevocationService service = service(1000);
+        long now = System.currentTimeMillis();
+        service.revoke("active", 1L, now + HOUR);
+        service.revoke("expired", 2L, now - 1);
+
+        service.purgeExpired();
+
+        verify(jdbcTemplate).update("DELETE FROM revoked_tokens WHERE expires_at < CURRENT_TIMESTAMP");
+        assertTrue(service.isRevoked("active"));
+        assertFalse(service.isRevoked("expired"));
+        assertEquals(1, revokedSize(service));
+    }
+
+    @Test
+    void bloomIsRebuiltPastItsCapacity() {
+        TokenRevocationService service = service(4);
+        long expiresAt = System.currentTimeMillis() + HOUR;
+        for (int i = 0; i < 100; i++) {
+            service.revoke("jti-" + i, 1L, expiresAt);
+        }
+
+        assertTrue((int) ReflectionTestUtils.getField(service, "bloomCapacity") >= 100);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(service.isRevoked("jti-" + i), "jti-" + i);
+        }
+        assertFalse(service.isRevoked("jti-100"));
+
+        ReflectionTestUtils.invokeMethod(service, "rebuildBloom");
+        for (int i = 0; i < 100; i++) {
+            assertTrue(service.isRevoked("jti-" + i), "jti-" + i);
+        }
+    }
+
+    @Test
+    void reloadReadsTheTable() throws Exception {
+        long expiresAt = System.currentTimeMillis() + HOUR;
+        ResultSet row = mock(ResultSet.class);
+        when(row.getString(1)).thenReturn("stored-1", "stored-2");
+        when(row.getTimestamp(2)).thenReturn(new Timestamp(expiresAt));
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(row);
+            handler.processRow(row);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+
+        TokenRevocationService service = service(1000);
+        service.reload();
+
+        assertTrue(service.isRevoked("stored-1"));
+        assertTrue(service.isRevoked("stored-2"));
+        assertFalse(service.isRevoked("stored-3"));
+    }
+
+    @Test
+    void notifyPayloadRoundTripsThroughApply() {
+        TokenRevocationService sender = service(1000);
+        // Como após o LISTEN em um PostgreSQL
+        ReflectionTestUtils.setField(sender, "postgres", true);
+        long expiresAt = System.currentTimeMillis() + HOUR;
+        // O separador é o último ':', então o jti pode conter ':'
+        String jti = "tenant:7:abc";
+        sender.revoke(jti, 1L, expiresAt);
+
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(jdbcTemplate).query(eq("SELECT pg_notify(?, ?)"), any(RowCallbackHandler.class),
+                eq("token_revoked"), payload.capture());
+
+        TokenRevocationService receiver = service(1000);
+        assertFalse(receiver.isRevoked(jti));
+        ReflectionTestUtils.invokeMethod(receiver, "apply", payload.getValue());
+        assertTrue(receiver.isRevoked(jti));
+    }
+
+    @Test
+    void invalidPayloadsAreIgnored() {
+        TokenRevocationService service = service(1000);
+        ReflectionTestUtils.invokeMethod(service, "apply", "no-separator");
+        ReflectionTestUtils.invokeMethod(service, "apply", ":123");
+        ReflectionTestUtils.invokeMethod(service, "apply", "jti:not-a-number");
+
+        assertEquals(0, revokedSize(service));
+        assertFalse(service.isRevoked("jti"));
+    }
+
+    private static int revokedSize(TokenRevocationService service) {
+        return ((Map<?, ?>) ReflectionTestUtils.getField(service, "revoked")).size();
+    }
+}